@@ -0,0 +1,83 @@
+package gym.benchmark;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A small benchmark harness modeled on JMH's average-time mode.
+ * Each benchmark is run for a number of warmup iterations and then measured iterations,
+ * with untimed setup before every iteration, and reported as nanoseconds per operation.
+ */
+public class BenchmarkRunner {
+    /**
+     * Receives values computed by benchmarks so the JIT can't eliminate the work producing them.
+     */
+    public static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final PrintStream out;
+
+    /**
+     * Creates a runner.
+     *
+     * @param warmupIterations      the number of unreported iterations run before measuring
+     * @param measurementIterations the number of measured iterations
+     * @param out                   where to print the results
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, PrintStream out) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.out = out;
+    }
+
+    /**
+     * Prints the header of the result table.
+     */
+    public void printHeader() {
+        out.printf(Locale.ROOT, "%-40s %10s %5s %14s %12s %6s%n", "Benchmark", "Scale", "Cnt", "Score", "Error", "Units");
+    }
+
+    /**
+     * Runs a benchmark at a given scale and prints its result row.
+     *
+     * @param benchmark the benchmark to run
+     * @param scale     the number of clients and sessions to set the gym up with
+     */
+    public void run(GymBenchmark benchmark, int scale) {
+        benchmark.setupTrial(scale);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                runIteration(benchmark);
+            }
+            List<Double> scores = new ArrayList<>(measurementIterations);
+            for (int i = 0; i < measurementIterations; i++) {
+                scores.add(runIteration(benchmark));
+            }
+            double mean = scores.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+            double variance = scores.stream().mapToDouble(score -> (score - mean) * (score - mean)).sum()
+                    / Math.max(1, scores.size() - 1);
+            double error = 2 * Math.sqrt(variance / scores.size()); // Roughly a 95% confidence interval
+            out.printf(Locale.ROOT, "%-40s %10d %5d %14.1f %12.1f %6s%n",
+                    benchmark.getName(), scale, scores.size(), mean, error, "ns/op");
+        } finally {
+            benchmark.tearDownTrial();
+        }
+    }
+
+    /**
+     * Runs one iteration of a benchmark.
+     *
+     * @param benchmark the benchmark to run
+     * @return the average time per operation in nanoseconds
+     */
+    private double runIteration(GymBenchmark benchmark) {
+        benchmark.setupIteration();
+        long start = System.nanoTime();
+        int operations = benchmark.runIteration();
+        long elapsed = System.nanoTime() - start;
+        return (double) elapsed / Math.max(1, operations);
+    }
+}
@@ -0,0 +1,171 @@
+package gym.benchmark;
+
+import gym.Exception.InstructorNotQualifiedException;
+import gym.Exception.InstructorUnavailableException;
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import gym.management.BatchResult;
+import gym.management.Gym;
+import gym.management.GymRegistry;
+import gym.management.Instructor;
+import gym.management.Secretary;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import gym.time.DateCodec;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base class for benchmarks of gym operations.
+ * Before a benchmark runs, a fresh gym is set up with a given number of clients and future sessions,
+ * spread over a fixed set of instructors so that no instructor teaches two sessions at once.
+ */
+public abstract class GymBenchmark {
+    /**
+     * The number of instructors in the benchmark gym.
+     */
+    protected static final int INSTRUCTOR_COUNT = 10;
+
+    /**
+     * The time of the first session; later sessions follow hour by hour.
+     */
+    protected static final LocalDateTime FIRST_SESSION = LocalDateTime.of(2100, 1, 1, 0, 0);
+
+    private static final AtomicInteger gymCounter = new AtomicInteger();
+
+    private final String name;
+    protected Gym gym;
+    protected Secretary secretary;
+    protected List<Instructor> instructors;
+    protected List<Client> clients;
+    protected List<Session> sessions;
+
+    /**
+     * Creates a benchmark.
+     *
+     * @param name the name shown in the results
+     */
+    protected GymBenchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the benchmark.
+     *
+     * @return the benchmark name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets up a fresh gym with {@code scale} clients and {@code scale} sessions.
+     * Every session gets one participant.
+     *
+     * @param scale the number of clients and sessions
+     */
+    public void setupTrial(int scale) {
+        gym = GymRegistry.getInstance().getGym("benchmark-" + gymCounter.incrementAndGet());
+        gym.setName("Benchmark");
+        gym.setSecretary(newPerson("Secretary", 0), 9000);
+        secretary = gym.getSecretary();
+
+        instructors = new ArrayList<>(INSTRUCTOR_COUNT);
+        for (int i = 0; i < INSTRUCTOR_COUNT; i++) {
+            instructors.add(secretary.hireInstructor(newPerson("Instructor" + i, 0), 50,
+                    new ArrayList<>(Arrays.asList(SessionType.values()))));
+        }
+
+        clients = registerClients("Client", scale);
+
+        sessions = new ArrayList<>(scale);
+        SessionType[] types = SessionType.values();
+        for (int i = 0; i < scale; i++) {
+            sessions.add(addSession(types[i % types.length], i));
+        }
+        for (int i = 0; i < scale; i++) {
+            Session session = sessions.get(i);
+            if (session.reserveSeat()) {
+                session.registerClient(clients.get(i));
+            }
+        }
+    }
+
+    /**
+     * Prepares the state for the next iteration. Not timed.
+     */
+    public void setupIteration() {
+    }
+
+    /**
+     * Runs the timed operations of one iteration.
+     *
+     * @return the number of operations performed
+     */
+    public abstract int runIteration();
+
+    /**
+     * Releases the benchmark gym.
+     */
+    public void tearDownTrial() {
+        GymRegistry.getInstance().removeGym(gym.getId());
+        gym = null;
+        secretary = null;
+        instructors = null;
+        clients = null;
+        sessions = null;
+    }
+
+    /**
+     * Creates an adult person with a large balance.
+     *
+     * @param name    the name of the person
+     * @param balance the initial balance
+     * @return the new person
+     */
+    protected static Person newPerson(String name, double balance) {
+        return new Person(name, balance, Gender.Female, "01-01-1990");
+    }
+
+    /**
+     * Registers a number of new clients in the benchmark gym.
+     *
+     * @param prefix the prefix of the clients' names
+     * @param count  the number of clients
+     * @return the new clients
+     */
+    protected List<Client> registerClients(String prefix, int count) {
+        List<Person> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            persons.add(newPerson(prefix + i, 1_000_000));
+        }
+        BatchResult<Client> result = secretary.registerClients(persons);
+        List<Client> registered = new ArrayList<>(count);
+        for (int i = 0; i < result.size(); i++) {
+            registered.add(result.getResult(i));
+        }
+        return registered;
+    }
+
+    /**
+     * Adds the {@code index}-th session of the benchmark timetable.
+     *
+     * @param type  the type of the session
+     * @param index the position of the session in the timetable
+     * @return the new session
+     */
+    protected Session addSession(SessionType type, int index) {
+        String dateTime = DateCodec.formatDateTime(DateCodec.toEpochMinute(FIRST_SESSION) + index / INSTRUCTOR_COUNT * 60);
+        try {
+            return secretary.addSession(type, dateTime, ForumType.All, instructors.get(index % INSTRUCTOR_COUNT));
+        } catch (InstructorNotQualifiedException | InstructorUnavailableException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package gym.benchmark;
+
+import gym.Exception.ClientNotRegisteredException;
+import gym.Exception.DuplicateClientException;
+import gym.Exception.InvalidAgeException;
+import gym.customers.Client;
+import gym.customers.Person;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmarks of the Secretary and Gym hot paths at growing gym sizes.
+ * <p>
+ * Usage: {@code java gym.benchmark.GymBenchmarks [scales] [name filter]}, where scales is a
+ * comma-separated list of gym sizes (default 1000,10000,100000,1000000) and the filter, if given,
+ * selects the benchmarks whose name contains it. The benchmarks live in their own source root,
+ * apart from the gym code; build them from the repository root with:
+ * <pre>
+ * javac -d out $(find gym bench -name '*.java')
+ * java -cp out gym.benchmark.GymBenchmarks
+ * </pre>
+ */
+public class GymBenchmarks {
+    private static final int OPERATIONS = 1000; // Operations per iteration of the cheap benchmarks
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args the scales and the optional name filter
+     */
+    public static void main(String[] args) {
+        int[] scales = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()
+                : new int[]{1_000, 10_000, 100_000, 1_000_000};
+        String filter = args.length > 1 ? args[1] : "";
+
+        BenchmarkRunner runner = new BenchmarkRunner(3, 5, System.out);
+        runner.printHeader();
+        for (GymBenchmark benchmark : benchmarks()) {
+            if (!benchmark.getName().contains(filter)) {
+                continue;
+            }
+            for (int scale : scales) {
+                runner.run(benchmark, scale);
+            }
+        }
+    }
+
+    /**
+     * Returns all benchmarks.
+     *
+     * @return the benchmarks
+     */
+    static List<GymBenchmark> benchmarks() {
+        return Arrays.asList(
+                new RegisterClient(),
+                new UnregisterClient(),
+                new RegisterClientToLesson(),
+                new NotifySession(),
+                new NotifyDate(),
+                new NotifyAll(),
+                new PaySalaries(),
+                new GymReport(),
+                new GymReportStream());
+    }
+
+    /**
+     * Registers new clients; the previous iteration's clients are unregistered before each iteration.
+     */
+    static class RegisterClient extends GymBenchmark {
+        private final List<Person> persons = new ArrayList<>();
+        private final List<Client> registered = new ArrayList<>();
+
+        RegisterClient() {
+            super("Secretary.registerClient");
+        }
+
+        @Override
+        public void setupIteration() {
+            try {
+                for (Client client : registered) {
+                    secretary.unregisterClient(client);
+                }
+            } catch (ClientNotRegisteredException e) {
+                throw new IllegalStateException(e);
+            }
+            registered.clear();
+            persons.clear();
+            for (int i = 0; i < OPERATIONS; i++) {
+                persons.add(newPerson("New" + i, 1000));
+            }
+        }
+
+        @Override
+        public int runIteration() {
+            try {
+                for (Person person : persons) {
+                    registered.add(secretary.registerClient(person));
+                }
+            } catch (DuplicateClientException | InvalidAgeException e) {
+                throw new IllegalStateException(e);
+            }
+            return persons.size();
+        }
+
+        @Override
+        public void tearDownTrial() {
+            registered.clear();
+            persons.clear();
+            super.tearDownTrial();
+        }
+    }
+
+    /**
+     * Unregisters clients registered before each iteration.
+     */
+    static class UnregisterClient extends GymBenchmark {
+        private List<Client> pool;
+
+        UnregisterClient() {
+            super("Secretary.unregisterClient");
+        }
+
+        @Override
+        public void setupIteration() {
+            pool = registerClients("New", OPERATIONS);
+        }
+
+        @Override
+        public int runIteration() {
+            try {
+                for (Client client : pool) {
+                    secretary.unregisterClient(client);
+                }
+            } catch (ClientNotRegisteredException e) {
+                throw new IllegalStateException(e);
+            }
+            return pool.size();
+        }
+    }
+
+    /**
+     * Books clients into sessions spread over the whole timetable.
+     */
+    static class RegisterClientToLesson extends GymBenchmark {
+        private int iteration;
+
+        RegisterClientToLesson() {
+            super("Secretary.registerClientToLesson");
+        }
+
+        @Override
+        public void setupIteration() {
+            iteration++;
+        }
+
+        @Override
+        public int runIteration() {
+            int operations = Math.min(OPERATIONS, clients.size());
+            for (int i = 0; i < operations; i++) {
+                Client client = clients.get((i + iteration) % clients.size());
+                try {
+                    secretary.registerClientToLesson(client, sessions.get((i * 7919 + iteration) % sessions.size()));
+                } catch (ClientNotRegisteredException e) {
+                    throw new IllegalStateException(e);
+                } catch (DuplicateClientException e) {
+                    // Booking the same client twice is part of the measured path
+                }
+            }
+            return operations;
+        }
+    }
+
+    /**
+     * Notifies the participants of single sessions.
+     */
+    static class NotifySession extends GymBenchmark {
+        NotifySession() {
+            super("Secretary.notify(Session)");
+        }
+
+        @Override
+        public int runIteration() {
+            int operations = Math.min(OPERATIONS, sessions.size());
+            for (int i = 0; i < operations; i++) {
+                secretary.notify(sessions.get(i * 31 % sessions.size()), "Session update");
+            }
+            return operations;
+        }
+    }
+
+    /**
+     * Notifies the participants of all sessions on a date.
+     */
+    static class NotifyDate extends GymBenchmark {
+        NotifyDate() {
+            super("Secretary.notify(date)");
+        }
+
+        @Override
+        public int runIteration() {
+            String date = FIRST_SESSION.format(DATE_FORMAT);
+            for (int i = 0; i < OPERATIONS; i++) {
+                secretary.notify(date, "Heavy traffic today");
+            }
+            return OPERATIONS;
+        }
+    }
+
+    /**
+     * Notifies all clients of the gym.
+     */
+    static class NotifyAll extends GymBenchmark {
+        NotifyAll() {
+            super("Secretary.notify(all)");
+        }
+
+        @Override
+        public int runIteration() {
+            secretary.notify("Happy New Year");
+            return 1;
+        }
+    }
+
+    /**
+     * Pays the salaries of all employees.
+     */
+    static class PaySalaries extends GymBenchmark {
+        PaySalaries() {
+            super("Secretary.paySalaries");
+        }
+
+        @Override
+        public int runIteration() {
+            for (int i = 0; i < OPERATIONS; i++) {
+                secretary.paySalaries();
+            }
+            return OPERATIONS;
+        }
+    }
+
+    /**
+     * Builds the full gym report.
+     */
+    static class GymReport extends GymBenchmark {
+        GymReport() {
+            super("Gym.toString");
+        }
+
+        @Override
+        public int runIteration() {
+            BenchmarkRunner.sink = gym.toString();
+            return 1;
+        }
+    }
+
+    /**
+     * Streams the full gym report to a writer that discards it.
+     */
+    static class GymReportStream extends GymBenchmark {
+        private final Writer out = Writer.nullWriter();
+
+        GymReportStream() {
+            super("Gym.writeReport");
+        }
+
+        @Override
+        public int runIteration() {
+            try {
+                gym.writeReport(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return 1;
+        }
+    }
+}
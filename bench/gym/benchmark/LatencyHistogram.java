@@ -0,0 +1,103 @@
+package gym.benchmark;
+
+/**
+ * A fixed-size histogram of latencies in nanoseconds.
+ * Values are grouped into buckets by power of two, each split into linear sub-buckets,
+ * which keeps the relative error of reported percentiles around 3% whatever the magnitude.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts;
+    private long totalCount;
+    private long max;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        totalCount++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of latencies
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the largest recorded latency.
+     *
+     * @return the largest latency in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the latency below which a given fraction of the recorded latencies fall.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, highestValueAt(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the bucket index of a value.
+     *
+     * @param value the non-negative value
+     * @return the bucket index
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> exponent) - SUB_BUCKETS / 2;
+        return SUB_BUCKETS + (exponent - 1) * (SUB_BUCKETS / 2) + subBucket;
+    }
+
+    /**
+     * Returns the largest value that falls into a bucket.
+     *
+     * @param index the bucket index
+     * @return the largest value of the bucket
+     */
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKETS) / (SUB_BUCKETS / 2) + 1;
+        long subBucket = (index - SUB_BUCKETS) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+}
@@ -0,0 +1,180 @@
+package gym.benchmark;
+
+import gym.time.DateCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a gym's action history into a workload script, so a production-like mix of operations
+ * can be replayed with {@link WorkloadReplay}.
+ * <p>
+ * The history doesn't record everything a script needs, so captured scripts fill in defaults:
+ * clients get a large balance and an adult date of birth, instructors are certified for every
+ * session type, and sessions are open to all. Failed registrations are not captured, since the
+ * history doesn't say who attempted them. The replay gym's clock is fixed one day before the earliest
+ * session, so every captured booking is replayed against a future session. Clients registered in a batch
+ * are captured one by one. Batch bookings can't be captured, since the history only counts their clients,
+ * so a history containing one is rejected. Waitlist promotions are not captured either: replaying the
+ * cancellation or waitlist entry that caused them promotes the same client again.
+ */
+public class WorkloadCapture {
+
+    private static final String DEFAULT_BALANCE = "1000000";
+    private static final String DEFAULT_GENDER = "Female";
+    private static final String DEFAULT_BIRTHDAY = "01-01-1990";
+    private static final String ALL_SESSION_TYPES = "Pilates,MachinePilates,ThaiBoxing,Ninja";
+    private static final Pattern CLIENT_BATCH = Pattern.compile("Registered (\\d+) of \\d+ new clients: (.*)");
+    private static final Pattern BOOKING_BATCH = Pattern.compile("Registered \\d+ of \\d+ clients to session: .*");
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private WorkloadCapture() {
+    }
+
+    /**
+     * Converts action history lines into workload script lines.
+     *
+     * @param history the action history, oldest first
+     * @return the script lines
+     * @throws IllegalArgumentException if the history contains an action that can't be captured
+     */
+    public static List<String> fromActionHistory(Iterable<String> history) {
+        List<String> script = new ArrayList<>();
+        int earliestSession = Integer.MAX_VALUE;
+        for (String action : history) {
+            for (WorkloadOperation operation : toOperations(action)) {
+                if (operation.getType().equals("session")) {
+                    earliestSession = Math.min(earliestSession, DateCodec.parseDateTime(operation.getField(1)));
+                }
+                script.add(operation.toString());
+            }
+        }
+        if (earliestSession != Integer.MAX_VALUE) {
+            String clock = DateCodec.formatDateTime(earliestSession - DateCodec.MINUTES_PER_DAY);
+            script.add(0, new WorkloadOperation("clock", clock).toString());
+        }
+        script.add(0, "# Captured from an action history");
+        return script;
+    }
+
+    /**
+     * Converts one action history line into workload operations.
+     *
+     * @param action the action history line
+     * @return the operations, empty if the action is not replayable
+     * @throws IllegalArgumentException if the action can't be captured
+     */
+    static List<WorkloadOperation> toOperations(String action) {
+        Matcher batch = CLIENT_BATCH.matcher(action);
+        if (batch.matches()) {
+            int count = Integer.parseInt(batch.group(1));
+            String[] names = count == 0 ? new String[0] : batch.group(2).split(", ", -1);
+            if (names.length != count) {
+                throw new IllegalArgumentException("Can't tell the client names apart: " + action);
+            }
+            List<WorkloadOperation> operations = new ArrayList<>(count);
+            for (String name : names) {
+                operations.add(new WorkloadOperation("client", name, DEFAULT_BALANCE, DEFAULT_GENDER, DEFAULT_BIRTHDAY));
+            }
+            return operations;
+        }
+        if (BOOKING_BATCH.matcher(action).matches()) {
+            throw new IllegalArgumentException("Batch bookings don't record their clients: " + action);
+        }
+        WorkloadOperation operation = toOperation(action);
+        return operation == null ? List.of() : List.of(operation);
+    }
+
+    /**
+     * Converts one action history line about a single operation into a workload operation.
+     *
+     * @param action the action history line
+     * @return the operation, or null if the action is not replayable
+     */
+    private static WorkloadOperation toOperation(String action) {
+        String rest;
+        if ((rest = after(action, "A new secretary has started working at the gym: ")) != null) {
+            return new WorkloadOperation("secretary", rest, "0");
+        }
+        if ((rest = after(action, "Registered new client: ")) != null) {
+            return new WorkloadOperation("client", rest, DEFAULT_BALANCE, DEFAULT_GENDER, DEFAULT_BIRTHDAY);
+        }
+        if ((rest = after(action, "Unregistered client: ")) != null) {
+            return new WorkloadOperation("unregister", rest);
+        }
+        if ((rest = after(action, "Hired new instructor: ")) != null) {
+            int salary = rest.lastIndexOf(" with salary per hour: ");
+            return new WorkloadOperation("instructor", rest.substring(0, salary), "0", DEFAULT_GENDER,
+                    DEFAULT_BIRTHDAY, rest.substring(salary + " with salary per hour: ".length()), ALL_SESSION_TYPES);
+        }
+        if ((rest = after(action, "Created new session: ")) != null) {
+            String[] typeAndRest = rest.split(" on ", 2);
+            String[] timeAndInstructor = typeAndRest[1].split(" with instructor: ", 2);
+            return new WorkloadOperation("session", typeAndRest[0], scriptDateTime(timeAndInstructor[0]), "All",
+                    timeAndInstructor[1]);
+        }
+        if ((rest = after(action, "Registered client: ")) != null) {
+            String[] nameAndRest = rest.split(" to session: ", 2);
+            String[] typeAndRest = nameAndRest[1].split(" on ", 2);
+            String time = typeAndRest[1].split(" for price: ", 2)[0];
+            return new WorkloadOperation("book", nameAndRest[0], typeAndRest[0], scriptDateTime(time));
+        }
+        if ((rest = after(action, "Added client: ")) != null) {
+            String[] nameAndRest = rest.split(" to the waitlist of session: ", 2);
+            String[] typeAndTime = nameAndRest[1].split(" on ", 2);
+            return new WorkloadOperation("waitlist", nameAndRest[0], typeAndTime[0], scriptDateTime(typeAndTime[1]));
+        }
+        if ((rest = after(action, "Cancelled registration of client: ")) != null) {
+            String[] nameAndRest = rest.split(" to session: ", 2);
+            String[] typeAndRest = nameAndRest[1].split(" on ", 2);
+            String time = typeAndRest[1].split(" with refund: ", 2)[0];
+            return new WorkloadOperation("cancel", nameAndRest[0], typeAndRest[0], scriptDateTime(time));
+        }
+        if ((rest = after(action, "A message was sent to everyone registered for session ")) != null) {
+            String[] typeAndRest = rest.split(" on ", 2);
+            String[] timeAndMessage = typeAndRest[1].split(" : ", 2);
+            return new WorkloadOperation("notify-session", typeAndRest[0], scriptDateTime(timeAndMessage[0]),
+                    timeAndMessage[1]);
+        }
+        if ((rest = after(action, "A message was sent to everyone registered for a session on ")) != null) {
+            String[] dateAndMessage = rest.split(" : ", 2);
+            return new WorkloadOperation("notify-date",
+                    DateCodec.formatDate(DateCodec.parseIsoDate(dateAndMessage[0])), dateAndMessage[1]);
+        }
+        if ((rest = after(action, "A message was sent to all gym clients: ")) != null) {
+            return new WorkloadOperation("notify-all", rest);
+        }
+        if (action.equals("Salaries have been paid to all employees")) {
+            return new WorkloadOperation("payroll");
+        }
+        if ((rest = after(action, "Salaries for ")) != null && rest.endsWith(" have been paid to all employees")) {
+            return new WorkloadOperation("payroll-month", rest.substring(0, rest.indexOf(' ')));
+        }
+        return null; // Including failed registrations and waitlist promotions
+    }
+
+    /**
+     * Returns the part of a line after a prefix.
+     *
+     * @param line   the line
+     * @param prefix the expected prefix
+     * @return the rest of the line, or null if the line doesn't start with the prefix
+     */
+    private static String after(String line, String prefix) {
+        return line.startsWith(prefix) ? line.substring(prefix.length()) : null;
+    }
+
+    /**
+     * Converts a date and time from the action history format to the script format.
+     *
+     * @param historyDateTime the date and time in "yyyy-MM-dd'T'HH:mm" format
+     * @return the date and time in "dd-MM-yyyy HH:mm" format
+     */
+    private static String scriptDateTime(String historyDateTime) {
+        return DateCodec.formatDateTime(DateCodec.parseIsoDateTime(historyDateTime));
+    }
+}
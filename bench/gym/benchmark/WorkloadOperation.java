@@ -0,0 +1,147 @@
+package gym.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One line of a workload script: an operation type followed by its fields.
+ * <p>
+ * Scripts are plain text with one operation per line and fields separated by {@code |}.
+ * Empty lines and lines starting with {@code #} are ignored. The supported operations are:
+ * <pre>
+ * clock|dd-MM-yyyy HH:mm                                    fixes the replay gym's clock
+ * secretary|name|salary
+ * client|name|balance|Male/Female|dd-MM-yyyy
+ * unregister|name
+ * instructor|name|balance|Male/Female|dd-MM-yyyy|salaryPerHour|Type,Type,...
+ * session|Type|dd-MM-yyyy HH:mm|Forum|instructorName
+ * book|clientName|Type|dd-MM-yyyy HH:mm
+ * waitlist|clientName|Type|dd-MM-yyyy HH:mm
+ * cancel|clientName|Type|dd-MM-yyyy HH:mm
+ * notify-session|Type|dd-MM-yyyy HH:mm|message
+ * notify-date|dd-MM-yyyy|message
+ * notify-all|message
+ * payroll
+ * payroll-month|yyyy-MM
+ * </pre>
+ * The last field of the notify operations may itself contain {@code |}.
+ */
+public class WorkloadOperation {
+    private final String type;
+    private final String[] fields;
+
+    /**
+     * Creates an operation.
+     *
+     * @param type   the operation type
+     * @param fields the fields following the type
+     */
+    public WorkloadOperation(String type, String... fields) {
+        this.type = type;
+        this.fields = fields;
+    }
+
+    /**
+     * Parses a script line.
+     *
+     * @param line the line to parse
+     * @return the operation, or null if the line is empty or a comment
+     * @throws IllegalArgumentException if the operation type is unknown
+     */
+    public static WorkloadOperation parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        String type = trimmed.split("\\|", 2)[0];
+        int fieldCount = fieldCount(type);
+        String[] parts = trimmed.split("\\|", fieldCount + 1);
+        if (parts.length != fieldCount + 1) {
+            throw new IllegalArgumentException("Expected " + fieldCount + " fields for " + type + ": " + line);
+        }
+        String[] fields = new String[fieldCount];
+        System.arraycopy(parts, 1, fields, 0, fieldCount);
+        return new WorkloadOperation(type, fields);
+    }
+
+    /**
+     * Parses all operations of a script.
+     *
+     * @param lines the lines of the script
+     * @return the operations, in script order
+     * @throws IllegalArgumentException if a line can't be parsed
+     */
+    public static List<WorkloadOperation> parseAll(Iterable<String> lines) {
+        List<WorkloadOperation> operations = new ArrayList<>();
+        for (String line : lines) {
+            WorkloadOperation operation = parse(line);
+            if (operation != null) {
+                operations.add(operation);
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Returns the number of fields an operation type takes.
+     *
+     * @param type the operation type
+     * @return the number of fields
+     * @throws IllegalArgumentException if the operation type is unknown
+     */
+    private static int fieldCount(String type) {
+        switch (type) {
+            case "payroll":
+                return 0;
+            case "clock":
+            case "payroll-month":
+            case "unregister":
+            case "notify-all":
+                return 1;
+            case "secretary":
+            case "notify-date":
+                return 2;
+            case "book":
+            case "waitlist":
+            case "cancel":
+            case "notify-session":
+                return 3;
+            case "client":
+            case "session":
+                return 4;
+            case "instructor":
+                return 6;
+            default:
+                throw new IllegalArgumentException("Unknown workload operation: " + type);
+        }
+    }
+
+    /**
+     * Returns the operation type.
+     *
+     * @return the type
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns a field of the operation.
+     *
+     * @param index the position of the field after the type
+     * @return the field
+     */
+    public String getField(int index) {
+        return fields[index];
+    }
+
+    /**
+     * Returns the operation as a script line.
+     *
+     * @return the script line
+     */
+    @Override
+    public String toString() {
+        return fields.length == 0 ? type : type + "|" + String.join("|", fields);
+    }
+}
@@ -0,0 +1,318 @@
+package gym.benchmark;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import gym.management.Gym;
+import gym.management.GymRegistry;
+import gym.management.Instructor;
+import gym.management.Secretary;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Replays a workload script against a fresh gym at a target rate and reports the throughput
+ * and latency percentiles of each operation type.
+ * <p>
+ * Latencies are measured from the time an operation was scheduled to start, so a slow operation
+ * also shows up in the latency of the operations queued behind it. A {@code clock} line in the script
+ * fixes the replay gym's clock for the whole replay, which makes replays deterministic.
+ * <p>
+ * Usage, after building as described in {@link GymBenchmarks}:
+ * <pre>
+ * java gym.benchmark.WorkloadReplay script.txt [operations per second]
+ * java gym.benchmark.WorkloadReplay --capture action-history.txt script.txt
+ * </pre>
+ */
+public class WorkloadReplay {
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final AtomicInteger gymCounter = new AtomicInteger();
+
+    private final double operationsPerSecond;
+    private final LongSupplier nanoTime;
+    private final Map<String, LatencyHistogram> histograms;
+    private final Map<String, Integer> errors;
+    private Gym gym;
+    private Map<String, Person> persons;
+    private Map<String, Client> clients;
+    private Map<String, Instructor> instructors;
+    private Map<String, Session> sessions;
+    private long elapsedNanos;
+
+    /**
+     * Creates a replay.
+     *
+     * @param operationsPerSecond the target rate, or 0 to replay as fast as possible
+     * @param nanoTime            the time source used for pacing and measuring
+     */
+    public WorkloadReplay(double operationsPerSecond, LongSupplier nanoTime) {
+        this.operationsPerSecond = operationsPerSecond;
+        this.nanoTime = nanoTime;
+        this.histograms = new LinkedHashMap<>();
+        this.errors = new HashMap<>();
+    }
+
+    /**
+     * Runs the replay tool.
+     *
+     * @param args the command line arguments
+     * @throws IOException if a file can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--capture")) {
+            List<String> history = Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8);
+            Files.write(Paths.get(args[2]), WorkloadCapture.fromActionHistory(history), StandardCharsets.UTF_8);
+            return;
+        }
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: WorkloadReplay script [operations per second]");
+            System.err.println("       WorkloadReplay --capture action-history script");
+            System.exit(2);
+        }
+        List<WorkloadOperation> operations =
+                WorkloadOperation.parseAll(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8));
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        WorkloadReplay replay = new WorkloadReplay(rate, System::nanoTime);
+        replay.replay(operations);
+        replay.printReport(System.out);
+    }
+
+    /**
+     * Replays operations against a new gym. Clock operations set the replay gym's own clock,
+     * so other gyms keep their time.
+     *
+     * @param operations the operations to replay, in order
+     */
+    public void replay(List<WorkloadOperation> operations) {
+        String gymId = "replay-" + gymCounter.incrementAndGet();
+        gym = GymRegistry.getInstance().getGym(gymId);
+        gym.setName("Replay");
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 0);
+        persons = new HashMap<>();
+        clients = new HashMap<>();
+        instructors = new HashMap<>();
+        sessions = new HashMap<>();
+        try {
+            long intervalNanos = operationsPerSecond > 0 ? (long) (1_000_000_000L / operationsPerSecond) : 0;
+            long start = nanoTime.getAsLong();
+            long scheduled = start;
+            for (WorkloadOperation operation : operations) {
+                if (operation.getType().equals("clock")) {
+                    LocalDateTime now = LocalDateTime.parse(operation.getField(0), DATE_TIME_FORMAT);
+                    gym.setClock(Clock.fixed(now.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+                    continue;
+                }
+                if (intervalNanos > 0) {
+                    scheduled += intervalNanos;
+                    long wait;
+                    while ((wait = scheduled - nanoTime.getAsLong()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                } else {
+                    scheduled = nanoTime.getAsLong();
+                }
+                try {
+                    apply(operation);
+                } catch (Exception e) {
+                    errors.merge(operation.getType(), 1, Integer::sum);
+                }
+                histograms.computeIfAbsent(operation.getType(), t -> new LatencyHistogram())
+                        .record(nanoTime.getAsLong() - scheduled);
+            }
+            elapsedNanos = nanoTime.getAsLong() - start;
+        } finally {
+            GymRegistry.getInstance().removeGym(gymId);
+        }
+    }
+
+    /**
+     * Applies one operation to the gym.
+     *
+     * @param operation the operation
+     * @throws Exception if the gym rejects the operation
+     */
+    private void apply(WorkloadOperation operation) throws Exception {
+        Secretary secretary = gym.getSecretary();
+        switch (operation.getType()) {
+            case "secretary":
+                gym.setSecretary(person(operation.getField(0), 0, Gender.Female, "01-01-1980"),
+                        Double.parseDouble(operation.getField(1)));
+                break;
+            case "client":
+                Person person = person(operation.getField(0), Double.parseDouble(operation.getField(1)),
+                        Gender.valueOf(operation.getField(2)), operation.getField(3));
+                clients.put(person.getName(), secretary.registerClient(person));
+                break;
+            case "unregister":
+                secretary.unregisterClient(client(operation.getField(0)));
+                break;
+            case "instructor":
+                List<SessionType> types = new ArrayList<>();
+                for (String type : operation.getField(5).split(",")) {
+                    types.add(SessionType.valueOf(type.trim()));
+                }
+                Person instructor = person(operation.getField(0), Double.parseDouble(operation.getField(1)),
+                        Gender.valueOf(operation.getField(2)), operation.getField(3));
+                instructors.put(instructor.getName(),
+                        secretary.hireInstructor(instructor, Double.parseDouble(operation.getField(4)), types));
+                break;
+            case "session":
+                Instructor leader = instructors.get(operation.getField(3));
+                if (leader == null) {
+                    throw new IllegalArgumentException("Unknown instructor: " + operation.getField(3));
+                }
+                Session session = secretary.addSession(SessionType.valueOf(operation.getField(0)),
+                        operation.getField(1), ForumType.valueOf(operation.getField(2)), leader);
+                sessions.putIfAbsent(sessionKey(operation.getField(0), operation.getField(1)), session);
+                break;
+            case "book":
+                secretary.registerClientToLesson(client(operation.getField(0)),
+                        session(operation.getField(1), operation.getField(2)));
+                break;
+            case "waitlist":
+                secretary.addToWaitlist(client(operation.getField(0)),
+                        session(operation.getField(1), operation.getField(2)));
+                break;
+            case "cancel":
+                secretary.cancelRegistration(client(operation.getField(0)),
+                        session(operation.getField(1), operation.getField(2)));
+                break;
+            case "notify-session":
+                secretary.notify(session(operation.getField(0), operation.getField(1)), operation.getField(2));
+                break;
+            case "notify-date":
+                secretary.notify(operation.getField(0), operation.getField(1));
+                break;
+            case "notify-all":
+                secretary.notify(operation.getField(0));
+                break;
+            case "payroll":
+                secretary.paySalaries();
+                break;
+            case "payroll-month":
+                secretary.paySalaries(YearMonth.parse(operation.getField(0)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown workload operation: " + operation.getType());
+        }
+    }
+
+    /**
+     * Returns the person with a given name, creating it the first time the name is seen.
+     * Clients and instructors with the same name are the same person and share a bank account.
+     *
+     * @param name        the name of the person
+     * @param balance     the initial balance, if the person is new
+     * @param gender      the gender, if the person is new
+     * @param dateOfBirth the date of birth in "dd-MM-yyyy" format, if the person is new
+     * @return the person
+     */
+    private Person person(String name, double balance, Gender gender, String dateOfBirth) {
+        return persons.computeIfAbsent(name, n -> new Person(n, balance, gender, dateOfBirth));
+    }
+
+    /**
+     * Returns the registered client with a given name.
+     *
+     * @param name the name of the client
+     * @return the client
+     * @throws IllegalArgumentException if no client with that name was registered
+     */
+    private Client client(String name) {
+        Client client = clients.get(name);
+        if (client == null) {
+            throw new IllegalArgumentException("Unknown client: " + name);
+        }
+        return client;
+    }
+
+    /**
+     * Returns the session of a given type at a given time.
+     *
+     * @param type     the session type
+     * @param dateTime the date and time in "dd-MM-yyyy HH:mm" format
+     * @return the session
+     * @throws IllegalArgumentException if no such session was added
+     */
+    private Session session(String type, String dateTime) {
+        Session session = sessions.get(sessionKey(type, dateTime));
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown session: " + type + " on " + dateTime);
+        }
+        return session;
+    }
+
+    /**
+     * Returns the key identifying a session in a script.
+     *
+     * @param type     the session type
+     * @param dateTime the date and time in "dd-MM-yyyy HH:mm" format
+     * @return the session key
+     */
+    private static String sessionKey(String type, String dateTime) {
+        return type + "@" + dateTime;
+    }
+
+    /**
+     * Returns the latency histogram of each operation type, in the order the types first appeared.
+     *
+     * @return the histograms by operation type
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Returns the number of operations of a type that the gym rejected.
+     *
+     * @param type the operation type
+     * @return the number of rejected operations
+     */
+    public int getErrors(String type) {
+        return errors.getOrDefault(type, 0);
+    }
+
+    /**
+     * Prints the throughput and latency percentiles of each operation type.
+     *
+     * @param out where to print the report
+     */
+    public void printReport(PrintStream out) {
+        long total = 0;
+        for (LatencyHistogram histogram : histograms.values()) {
+            total += histogram.getCount();
+        }
+        double seconds = Math.max(1, elapsedNanos) / 1e9;
+        out.printf(Locale.ROOT, "Replayed %d operations in %.3f s (%.1f ops/s)%n", total, seconds, total / seconds);
+        out.printf(Locale.ROOT, "%-16s %10s %8s %12s %12s %12s %12s %12s%n",
+                "Operation", "Count", "Errors", "Ops/s", "p50 (us)", "p99 (us)", "p999 (us)", "max (us)");
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.printf(Locale.ROOT, "%-16s %10d %8d %12.1f %12.1f %12.1f %12.1f %12.1f%n",
+                    entry.getKey(), histogram.getCount(), getErrors(entry.getKey()), histogram.getCount() / seconds,
+                    histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+                    histogram.getPercentile(99.9) / 1e3, histogram.getMax() / 1e3);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package gym.Exception;
+
+/**
+ * An exception that is thrown when an instructor is already teaching another session at the requested time.
+ */
+public class InstructorUnavailableException extends Exception {
+
+    /**
+     * Creates a new InstructorUnavailableException with a specific message.
+     *
+     * @param message the detail message for the exception
+     */
+    public InstructorUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,10 +1,14 @@
 package gym.customers;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * A simple bank account for managing balance.
+ * The balance is kept in cents and updated atomically without locks,
+ * so an account can be shared between threads.
  */
 public class BankAccount {
-    private double balance;
+    private final AtomicLong balanceCents;
 
     /**
      * Creates a bank account with an initial balance.
@@ -12,7 +16,17 @@ public class BankAccount {
      * @param initialBalance the starting balance
      */
     public BankAccount(double initialBalance) {
-        this.balance = initialBalance;
+        this.balanceCents = new AtomicLong(toCents(initialBalance));
+    }
+
+    /**
+     * Converts an amount of money to cents, rounding to the nearest cent.
+     *
+     * @param amount the amount to convert
+     * @return the amount in cents
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
     }
 
     /**
@@ -21,7 +35,16 @@ public class BankAccount {
      * @return the balance
      */
     public double getBalance() {
-        return balance;
+        return balanceCents.get() / 100.0;
+    }
+
+    /**
+     * Returns the current balance in cents.
+     *
+     * @return the balance in cents
+     */
+    public long getBalanceCents() {
+        return balanceCents.get();
     }
 
     /**
@@ -30,7 +53,16 @@ public class BankAccount {
      * @param amount the amount to add
      */
     public void deposit(double amount) {
-        balance += amount;
+        depositCents(toCents(amount));
+    }
+
+    /**
+     * Adds money to the account.
+     *
+     * @param cents the amount to add, in cents
+     */
+    public void depositCents(long cents) {
+        balanceCents.addAndGet(cents);
     }
 
     /**
@@ -39,16 +71,43 @@ public class BankAccount {
      * @param amount the amount to subtract
      */
     public void withdraw(double amount) {
-        balance -= amount;
+        balanceCents.addAndGet(-toCents(amount));
+    }
+
+    /**
+     * Removes money from the account only if the balance covers it.
+     *
+     * @param amount the amount to subtract
+     * @return true if the money was withdrawn, false if the balance is insufficient
+     */
+    public boolean tryWithdraw(double amount) {
+        return tryWithdrawCents(toCents(amount));
+    }
+
+    /**
+     * Removes money from the account only if the balance covers it.
+     *
+     * @param cents the amount to subtract, in cents
+     * @return true if the money was withdrawn, false if the balance is insufficient
+     */
+    public boolean tryWithdrawCents(long cents) {
+        long balance;
+        do {
+            balance = balanceCents.get();
+            if (balance < cents) {
+                return false;
+            }
+        } while (!balanceCents.compareAndSet(balance, balance - cents));
+        return true;
     }
 
     /**
-     * Returns the balance as a string, rounded to the nearest integer.
+     * Returns the balance as a string, truncated to a whole amount.
      *
      * @return the balance as a string
      */
     @Override
     public String toString() {
-        return String.valueOf((int) balance);
+        return String.valueOf(balanceCents.get() / 100);
     }
 }
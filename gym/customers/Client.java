@@ -1,12 +1,15 @@
 package gym.customers;
 
+import gym.management.Sessions.ForumType;
 import gym.observer.Receiver;
+import gym.time.StudioClock;
 
 /**
  * Represents a client of the gym who can receive notifications and inherits basic properties from Person.
  * Implements the Receiver interface for handling notifications.
  */
 public class Client extends Person implements Receiver {
+    private volatile long eligibility = Long.MIN_VALUE; // Epoch day in the high bits, eligibility mask in the low bits
 
     /**
      * Constructs a new Client based on an existing Person.
@@ -27,6 +30,45 @@ public class Client extends Person implements Receiver {
         this.addNotification(message);
     }
 
+    /**
+     * Handles a notification stored in the shared message log by adding its ID to the client's inbox.
+     *
+     * @param messageId the ID of the notification message
+     */
+    @Override
+    public void update(int messageId) {
+        this.addNotification(messageId);
+    }
+
+    /**
+     * Returns the forums the client may join, as a mask of {@link ForumType#mask()} bits.
+     * The mask is computed at most once per day, since only turning 65 can change it.
+     *
+     * @return the eligibility mask
+     */
+    public int getEligibilityMask() {
+        return getEligibilityMask(StudioClock.todayEpochDay());
+    }
+
+    /**
+     * Returns the forums the client may join on a given day, as a mask of {@link ForumType#mask()} bits.
+     *
+     * @param today the day, as a count of days since 1970-01-01
+     * @return the eligibility mask
+     */
+    public int getEligibilityMask(long today) {
+        long cached = eligibility;
+        if (cached >> 32 == today) {
+            return (int) cached;
+        }
+        int mask = ForumType.All.mask() | (gender == Gender.Male ? ForumType.Male.mask() : ForumType.Female.mask());
+        if (isSenior(today)) {
+            mask |= ForumType.Seniors.mask();
+        }
+        eligibility = today << 32 | mask;
+        return mask;
+    }
+
     /**
      * Returns a string representation of the client.
      * This method uses the toString method from the superclass Person.
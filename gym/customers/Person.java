@@ -1,12 +1,15 @@
 package gym.customers;
 
+import gym.observer.Inbox;
+import gym.observer.MessageLog;
 import gym.observer.Notification;
+import gym.time.DateCodec;
+import gym.time.StudioClock;
 
 import java.time.LocalDate;
 import java.time.Period;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The Person class represents an individual in the gym system.
@@ -14,13 +17,17 @@ import java.util.List;
  * including clients, instructors, and staff members.
  */
 public class Person implements Notification {
-    private static int idCounter = 1111; // Static counter for generating unique IDs
+    public static final int ADULT_AGE = 18;  // Minimum age to register as a client
+    public static final int SENIOR_AGE = 65; // Minimum age for senior sessions
+    private static final AtomicInteger idCounter = new AtomicInteger(1111); // Counter for generating unique IDs
     protected int id;                   // Unique ID of the person
     protected String name;              // Name of the person
     protected Gender gender;            // Gender of the person
     protected LocalDate dateOfBirth;    // Date of birth of the person
     protected BankAccount bankAccount;  // Bank account associated with the person
-    protected List<String> notifications; // List of notifications for the person
+    protected Inbox notifications;      // Notifications received by the person
+    private long adultFromEpochDay;     // First day the person is an adult
+    private long seniorFromEpochDay;    // First day the person is a senior
 
     /**
      * Constructs a new Person with the specified attributes.
@@ -31,14 +38,71 @@ public class Person implements Notification {
      * @param dateOfBirth   The date of birth of the person in "dd-MM-yyyy" format.
      */
     public Person(String name, double initialBalance, Gender gender, String dateOfBirth) {
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
         this.name = name;
         this.gender = gender;
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        this.dateOfBirth = LocalDate.parse(dateOfBirth, formatter);
+        this.dateOfBirth = LocalDate.ofEpochDay(DateCodec.parseDate(dateOfBirth));
 
         this.bankAccount = new BankAccount(initialBalance);
-        this.notifications = new ArrayList<>();
+        this.notifications = new Inbox();
+        this.adultFromEpochDay = birthdayEpochDay(this.dateOfBirth, ADULT_AGE);
+        this.seniorFromEpochDay = birthdayEpochDay(this.dateOfBirth, SENIOR_AGE);
+    }
+
+    /**
+     * Constructs a person restored from a snapshot, keeping its original ID.
+     *
+     * @param id          The ID of the person.
+     * @param name        The name of the person.
+     * @param gender      The gender of the person.
+     * @param dateOfBirth The date of birth of the person.
+     * @param bankAccount The bank account of the person.
+     */
+    private Person(int id, String name, Gender gender, LocalDate dateOfBirth, BankAccount bankAccount) {
+        this.id = id;
+        this.name = name;
+        this.gender = gender;
+        this.dateOfBirth = dateOfBirth;
+        this.bankAccount = bankAccount;
+        this.notifications = new Inbox();
+        this.adultFromEpochDay = birthdayEpochDay(dateOfBirth, ADULT_AGE);
+        this.seniorFromEpochDay = birthdayEpochDay(dateOfBirth, SENIOR_AGE);
+    }
+
+    /**
+     * Restores a person saved in a snapshot. The person keeps its ID, and IDs handed out
+     * to new persons afterwards are greater than it.
+     *
+     * @param id           The ID of the person.
+     * @param name         The name of the person.
+     * @param gender       The gender of the person.
+     * @param dateOfBirth  The date of birth of the person.
+     * @param balanceCents The balance of the person's bank account, in cents.
+     * @return The restored person.
+     */
+    public static Person restore(int id, String name, Gender gender, LocalDate dateOfBirth, long balanceCents) {
+        BankAccount account = new BankAccount(0);
+        account.depositCents(balanceCents);
+        reserveIds(id + 1);
+        return new Person(id, name, gender, dateOfBirth, account);
+    }
+
+    /**
+     * Returns the ID the next new person will get.
+     *
+     * @return The next ID.
+     */
+    public static int getNextId() {
+        return idCounter.get();
+    }
+
+    /**
+     * Makes sure IDs handed out to new persons are at least a given value.
+     *
+     * @param nextId The smallest ID to hand out next.
+     */
+    public static void reserveIds(int nextId) {
+        idCounter.accumulateAndGet(nextId, Math::max);
     }
 
     /**
@@ -54,6 +118,33 @@ public class Person implements Notification {
         this.dateOfBirth = other.dateOfBirth;
         this.bankAccount = other.bankAccount;
         this.notifications = other.notifications;
+        this.adultFromEpochDay = other.adultFromEpochDay;
+        this.seniorFromEpochDay = other.seniorFromEpochDay;
+    }
+
+    /**
+     * Returns the first day on which a person born on a date has reached an age.
+     * Matches {@link Period#between}: someone born on February 29 reaches it on March 1 of a non-leap year.
+     *
+     * @param dateOfBirth The date of birth.
+     * @param years       The age.
+     * @return The epoch day of that birthday.
+     */
+    private static long birthdayEpochDay(LocalDate dateOfBirth, int years) {
+        LocalDate birthday = dateOfBirth.plusYears(years);
+        if (birthday.getDayOfMonth() < dateOfBirth.getDayOfMonth()) {
+            birthday = birthday.plusDays(1);
+        }
+        return birthday.toEpochDay();
+    }
+
+    /**
+     * Returns the unique ID of the person.
+     *
+     * @return The ID.
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -80,7 +171,45 @@ public class Person implements Notification {
      * @return The age of the person.
      */
     public int getAge() {
-        return Period.between(dateOfBirth, LocalDate.now()).getYears();
+        return Period.between(dateOfBirth, StudioClock.today()).getYears();
+    }
+
+    /**
+     * Checks if the person is old enough to register as a client.
+     *
+     * @return true if the person is at least {@link #ADULT_AGE} years old.
+     */
+    public boolean isAdult() {
+        return isAdult(StudioClock.todayEpochDay());
+    }
+
+    /**
+     * Checks if the person is old enough to register as a client on a given day.
+     *
+     * @param today the day, as a count of days since 1970-01-01
+     * @return true if the person is at least {@link #ADULT_AGE} years old on that day.
+     */
+    public boolean isAdult(long today) {
+        return today >= adultFromEpochDay;
+    }
+
+    /**
+     * Checks if the person is old enough to join senior sessions.
+     *
+     * @return true if the person is at least {@link #SENIOR_AGE} years old.
+     */
+    public boolean isSenior() {
+        return isSenior(StudioClock.todayEpochDay());
+    }
+
+    /**
+     * Checks if the person is old enough to join senior sessions on a given day.
+     *
+     * @param today the day, as a count of days since 1970-01-01
+     * @return true if the person is at least {@link #SENIOR_AGE} years old on that day.
+     */
+    public boolean isSenior(long today) {
+        return today >= seniorFromEpochDay;
     }
 
     /**
@@ -92,6 +221,24 @@ public class Person implements Notification {
         return bankAccount.getBalance();
     }
 
+    /**
+     * Returns the current balance of the person's bank account in cents.
+     *
+     * @return The balance in cents.
+     */
+    public long getBalanceCents() {
+        return bankAccount.getBalanceCents();
+    }
+
+    /**
+     * Returns the date of birth of the person.
+     *
+     * @return The date of birth.
+     */
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+
     /**
      * Adds a specified amount to the person's bank account balance.
      *
@@ -111,22 +258,46 @@ public class Person implements Notification {
     }
 
     /**
-     * Returns the list of notifications associated with the person.
+     * Deducts a specified amount from the person's bank account balance, only if the balance covers it.
+     *
+     * @param amount The amount to deduct.
+     * @return true if the amount was deducted; false if the balance is insufficient.
+     */
+    public boolean tryReduceBalance(double amount) {
+        return bankAccount.tryWithdraw(amount);
+    }
+
+    /**
+     * Returns the notifications received by the person, in the order they arrived.
      *
-     * @return The list of notifications.
+     * @return An unmodifiable list of notifications.
      */
     public List<String> getNotifications() {
-        return notifications;
+        return notifications.getMessages();
     }
 
     /**
-     * Adds a notification message to the person's notification list.
+     * Adds a notification message to the person's notifications.
+     * The message is stored in the shared message log.
      *
      * @param message The notification message.
      */
     @Override
     public void addNotification(String message) {
-        notifications.add(message);
+        MessageLog log = MessageLog.getInstance();
+        int messageId = log.append(message);
+        notifications.add(messageId);
+        log.release(messageId);
+    }
+
+    /**
+     * Adds a notification that is already stored in the shared message log.
+     *
+     * @param messageId The ID of the notification message.
+     */
+    @Override
+    public void addNotification(int messageId) {
+        notifications.add(messageId);
     }
 
     /**
@@ -140,7 +311,7 @@ public class Person implements Notification {
         return "ID: " + id
                 + " | Name: " + name
                 + " | Gender: " + gender
-                + " | Birthday: " + dateOfBirth.format(DateTimeFormatter.ofPattern("dd-MM-yyyy"))
+                + " | Birthday: " + DateCodec.formatDate(dateOfBirth.toEpochDay())
                 + " | Age: " + getAge()
                 + " | Balance: " + bankAccount;
     }
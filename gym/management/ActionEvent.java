@@ -0,0 +1,303 @@
+package gym.management;
+
+import gym.management.Sessions.Session;
+import gym.time.DateCodec;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * A single action recorded in the gym's action history.
+ * Holds the kind of action and the values it refers to; the text describing it
+ * is only built when the history is read.
+ */
+public class ActionEvent {
+    private final ActionKind kind;
+    private final String subject;  // Name of the person the action is about
+    private final Session session; // Session the action is about
+    private final long value;      // Amount, epoch day or month, depending on the kind
+    private final Object detail;   // Message text, registration error or batch details
+
+    private ActionEvent(ActionKind kind, String subject, Session session, long value, Object detail) {
+        this.kind = kind;
+        this.subject = subject;
+        this.session = session;
+        this.value = value;
+        this.detail = detail;
+    }
+
+    /**
+     * Creates an event for a new secretary starting work.
+     *
+     * @param name the name of the secretary
+     * @return the event
+     */
+    static ActionEvent secretaryStarted(String name) {
+        return new ActionEvent(ActionKind.SecretaryStarted, name, null, 0, null);
+    }
+
+    /**
+     * Creates an event for a client registering with the gym.
+     *
+     * @param name the name of the client
+     * @return the event
+     */
+    static ActionEvent clientRegistered(String name) {
+        return new ActionEvent(ActionKind.ClientRegistered, name, null, 0, null);
+    }
+
+    /**
+     * Creates an event for a batch of clients registering with the gym.
+     *
+     * @param names     the names of the clients that were registered
+     * @param attempted the number of people in the batch
+     * @return the event
+     */
+    static ActionEvent clientsRegistered(List<String> names, int attempted) {
+        return new ActionEvent(ActionKind.ClientsRegistered, null, null, attempted, names);
+    }
+
+    /**
+     * Creates an event for a client leaving the gym.
+     *
+     * @param name the name of the client
+     * @return the event
+     */
+    static ActionEvent clientUnregistered(String name) {
+        return new ActionEvent(ActionKind.ClientUnregistered, name, null, 0, null);
+    }
+
+    /**
+     * Creates an event for a newly hired instructor.
+     *
+     * @param name          the name of the instructor
+     * @param salaryPerHour the hourly salary of the instructor
+     * @return the event
+     */
+    static ActionEvent instructorHired(String name, int salaryPerHour) {
+        return new ActionEvent(ActionKind.InstructorHired, name, null, salaryPerHour, null);
+    }
+
+    /**
+     * Creates an event for a session added to the schedule.
+     *
+     * @param session the new session
+     * @return the event
+     */
+    static ActionEvent sessionCreated(Session session) {
+        return new ActionEvent(ActionKind.SessionCreated, session.getInstructor().getName(), session, 0, null);
+    }
+
+    /**
+     * Creates an event for a client registering to a session.
+     *
+     * @param name    the name of the client
+     * @param session the session
+     * @param price   the price paid
+     * @return the event
+     */
+    static ActionEvent clientRegisteredToSession(String name, Session session, int price) {
+        return new ActionEvent(ActionKind.ClientRegisteredToSession, name, session, price, null);
+    }
+
+    /**
+     * Creates an event for a batch of clients registering to a session.
+     *
+     * @param session    the session
+     * @param registered the number of clients that were registered
+     * @param attempted  the number of clients in the batch
+     * @param price      the price each registered client paid
+     * @return the event
+     */
+    static ActionEvent clientsRegisteredToSession(Session session, int registered, int attempted, int price) {
+        return new ActionEvent(ActionKind.ClientsRegisteredToSession, null, session, price, new int[]{registered, attempted});
+    }
+
+    /**
+     * Creates an event for a failed session registration.
+     *
+     * @param error the reason the registration failed
+     * @return the event
+     */
+    static ActionEvent registrationFailed(RegistrationError error) {
+        return new ActionEvent(ActionKind.RegistrationFailed, null, null, 0, error);
+    }
+
+    /**
+     * Creates an event for a client joining the waitlist of a session.
+     *
+     * @param name    the name of the client
+     * @param session the session
+     * @return the event
+     */
+    static ActionEvent clientWaitlisted(String name, Session session) {
+        return new ActionEvent(ActionKind.ClientWaitlisted, name, session, 0, null);
+    }
+
+    /**
+     * Creates an event for a waitlisted client registered to a session when a spot freed up.
+     *
+     * @param name    the name of the client
+     * @param session the session
+     * @param price   the price paid
+     * @return the event
+     */
+    static ActionEvent waitlistPromoted(String name, Session session, int price) {
+        return new ActionEvent(ActionKind.WaitlistPromoted, name, session, price, null);
+    }
+
+    /**
+     * Creates an event for a client cancelling their registration to a session.
+     *
+     * @param name    the name of the client
+     * @param session the session
+     * @param refund  the amount refunded
+     * @return the event
+     */
+    static ActionEvent registrationCancelled(String name, Session session, int refund) {
+        return new ActionEvent(ActionKind.RegistrationCancelled, name, session, refund, null);
+    }
+
+    /**
+     * Creates an event for a message sent to the participants of a session.
+     *
+     * @param session the session
+     * @param message the message
+     * @return the event
+     */
+    static ActionEvent sessionMessage(Session session, String message) {
+        return new ActionEvent(ActionKind.SessionMessage, null, session, 0, message);
+    }
+
+    /**
+     * Creates an event for a message sent to the participants of all sessions on a date.
+     *
+     * @param date    the date of the sessions
+     * @param message the message
+     * @return the event
+     */
+    static ActionEvent dateMessage(LocalDate date, String message) {
+        return new ActionEvent(ActionKind.DateMessage, null, null, date.toEpochDay(), message);
+    }
+
+    /**
+     * Creates an event for a message sent to all gym clients.
+     *
+     * @param message the message
+     * @return the event
+     */
+    static ActionEvent gymMessage(String message) {
+        return new ActionEvent(ActionKind.GymMessage, null, null, 0, message);
+    }
+
+    /**
+     * Creates an event for paying all salaries.
+     *
+     * @return the event
+     */
+    static ActionEvent salariesPaid() {
+        return new ActionEvent(ActionKind.SalariesPaid, null, null, 0, null);
+    }
+
+    /**
+     * Creates an event for paying all salaries for a single month.
+     *
+     * @param period the month that was paid for
+     * @return the event
+     */
+    static ActionEvent salariesPaid(YearMonth period) {
+        return new ActionEvent(ActionKind.PeriodSalariesPaid, null, null, period.getYear() * 12L + period.getMonthValue() - 1, null);
+    }
+
+    /**
+     * Creates an event for any other action.
+     *
+     * @param text the text describing the action
+     * @return the event
+     */
+    static ActionEvent other(String text) {
+        return new ActionEvent(ActionKind.Other, null, null, 0, text);
+    }
+
+    /**
+     * Returns the kind of the action.
+     *
+     * @return the action kind
+     */
+    public ActionKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the text describing the action, as shown in the action history.
+     *
+     * @return the action text
+     */
+    @Override
+    public String toString() {
+        switch (kind) {
+            case SecretaryStarted:
+                return "A new secretary has started working at the gym: " + subject;
+            case ClientRegistered:
+                return "Registered new client: " + subject;
+            case ClientsRegistered:
+                List<?> names = (List<?>) detail;
+                return "Registered " + names.size() + " of " + value + " new clients: "
+                        + String.join(", ", names.toArray(new String[0]));
+            case ClientUnregistered:
+                return "Unregistered client: " + subject;
+            case InstructorHired:
+                return "Hired new instructor: " + subject + " with salary per hour: " + value;
+            case SessionCreated:
+                return "Created new session: " + session.getType() + " on "
+                        + DateCodec.formatIsoDateTime(session.getEpochMinute())
+                        + " with instructor: " + subject;
+            case ClientRegisteredToSession:
+                return "Registered client: " + subject + " to session: "
+                        + session.getType() + " on "
+                        + DateCodec.formatIsoDateTime(session.getEpochMinute())
+                        + " for price: " + value;
+            case ClientsRegisteredToSession:
+                int[] counts = (int[]) detail;
+                return "Registered " + counts[0] + " of " + counts[1] + " clients to session: "
+                        + session.getType() + " on "
+                        + DateCodec.formatIsoDateTime(session.getEpochMinute())
+                        + " for price: " + value;
+            case RegistrationFailed:
+                return "Failed registration: " + ((RegistrationError) detail).getMessage();
+            case ClientWaitlisted:
+                return "Added client: " + subject + " to the waitlist of session: "
+                        + session.getType() + " on "
+                        + DateCodec.formatIsoDateTime(session.getEpochMinute());
+            case WaitlistPromoted:
+                return "Moved client: " + subject + " from the waitlist to session: "
+                        + session.getType() + " on "
+                        + DateCodec.formatIsoDateTime(session.getEpochMinute())
+                        + " for price: " + value;
+            case RegistrationCancelled:
+                return "Cancelled registration of client: " + subject + " to session: "
+                        + session.getType() + " on "
+                        + DateCodec.formatIsoDateTime(session.getEpochMinute())
+                        + " with refund: " + value;
+            case SessionMessage:
+                return "A message was sent to everyone registered for session "
+                        + session.getType() + " on "
+                        + DateCodec.formatIsoDateTime(session.getEpochMinute())
+                        + " : " + detail;
+            case DateMessage:
+                return "A message was sent to everyone registered for a session on "
+                        + DateCodec.formatIsoDate(value)
+                        + " : " + detail;
+            case GymMessage:
+                return "A message was sent to all gym clients: " + detail;
+            case SalariesPaid:
+                return "Salaries have been paid to all employees";
+            case PeriodSalariesPaid:
+                return "Salaries for " + YearMonth.of((int) (value / 12), (int) (value % 12) + 1)
+                        + " have been paid to all employees";
+            default:
+                return String.valueOf(detail);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package gym.management;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the actions performed in the gym as typed events.
+ * The text of each action is only built when the journal is read.
+ * <p>
+ * Only a window of the most recent actions is kept in memory. Once the window is exceeded,
+ * the oldest half of it is written as text to a segment file on disk, and reading the journal
+ * streams through the segment files before the in-memory actions.
+ * <p>
+ * Segment files are deleted by {@link #close()}. Journals that still have segment files when the
+ * process exits are closed by a single shutdown hook shared by all journals.
+ */
+public class ActionJournal implements Iterable<String>, Closeable {
+    /**
+     * The default number of recent actions kept in memory.
+     */
+    public static final int DEFAULT_MEMORY_WINDOW = 10_000;
+
+    private static final Set<ActionJournal> spilledJournals = ConcurrentHashMap.newKeySet(); // Closed on exit
+
+    private final ArrayDeque<ActionEvent> recent; // Most recent actions, oldest first
+    private final List<Path> segments;            // Spilled actions, oldest segment first
+    private int memoryWindow;
+    private Path spillDirectory;
+    private boolean ownsSpillDirectory;           // Created by the journal, so deleted with it
+    private long spilledCount;
+
+    /**
+     * Creates an empty journal that keeps the default number of actions in memory
+     * and spills older ones to a temporary directory.
+     */
+    public ActionJournal() {
+        this(DEFAULT_MEMORY_WINDOW, null);
+    }
+
+    /**
+     * Creates an empty journal.
+     *
+     * @param memoryWindow   the number of recent actions to keep in memory
+     * @param spillDirectory the directory for segment files, or null to use a temporary directory
+     * @throws IllegalArgumentException if the window is smaller than 1
+     */
+    public ActionJournal(int memoryWindow, Path spillDirectory) {
+        if (memoryWindow < 1) {
+            throw new IllegalArgumentException("Memory window must be at least 1");
+        }
+        this.recent = new ArrayDeque<>();
+        this.segments = new ArrayList<>();
+        this.memoryWindow = memoryWindow;
+        this.spillDirectory = spillDirectory;
+        this.spilledCount = 0;
+    }
+
+    /**
+     * Records an action, spilling older actions to disk if the memory window is exceeded.
+     *
+     * @param event the action to record
+     * @throws UncheckedIOException if older actions cannot be written to disk
+     */
+    public synchronized void record(ActionEvent event) {
+        recent.addLast(event);
+        if (recent.size() > memoryWindow) {
+            spill(Math.max(1, memoryWindow / 2));
+        }
+    }
+
+    /**
+     * Changes the number of recent actions kept in memory.
+     *
+     * @param memoryWindow the number of recent actions to keep in memory
+     * @throws IllegalArgumentException if the window is smaller than 1
+     */
+    public synchronized void setMemoryWindow(int memoryWindow) {
+        if (memoryWindow < 1) {
+            throw new IllegalArgumentException("Memory window must be at least 1");
+        }
+        this.memoryWindow = memoryWindow;
+        if (recent.size() > memoryWindow) {
+            spill(recent.size() - memoryWindow);
+        }
+    }
+
+    /**
+     * Returns the total number of recorded actions, on disk and in memory.
+     *
+     * @return the number of actions
+     */
+    public synchronized long size() {
+        return spilledCount + recent.size();
+    }
+
+    /**
+     * Returns the actions currently kept in memory, oldest first.
+     *
+     * @return an unmodifiable list of the recent actions
+     */
+    public synchronized List<ActionEvent> getRecentEvents() {
+        return Collections.unmodifiableList(new ArrayList<>(recent));
+    }
+
+    /**
+     * Returns an iterator over the text of all recorded actions, oldest first.
+     * Spilled actions are read from disk one segment at a time, so at most half a memory window of them
+     * is held at once, and no file stays open between calls: an iterator that is abandoned early
+     * holds no resources. Actions recorded after the iterator is created are not included.
+     *
+     * @return an iterator over the action texts
+     * @throws UncheckedIOException if a segment file cannot be read
+     */
+    @Override
+    public Iterator<String> iterator() {
+        List<Path> segmentsSnapshot;
+        ActionEvent[] recentSnapshot;
+        synchronized (this) {
+            segmentsSnapshot = new ArrayList<>(segments);
+            recentSnapshot = recent.toArray(new ActionEvent[0]);
+        }
+        return new JournalIterator(segmentsSnapshot, recentSnapshot);
+    }
+
+    /**
+     * Deletes the segment files, and the spill directory if the journal created it.
+     * The spilled actions are discarded; the in-memory actions are kept, and the journal can still be used.
+     *
+     * @throws IOException if a file can't be deleted
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        spilledJournals.remove(this);
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+        segments.clear();
+        spilledCount = 0;
+        if (ownsSpillDirectory) {
+            Files.deleteIfExists(spillDirectory);
+            spillDirectory = null;
+            ownsSpillDirectory = false;
+        }
+    }
+
+    /**
+     * Writes the oldest in-memory actions to a new segment file. The actions leave memory only once
+     * the segment is complete, so if writing fails they are all still in memory and the partial file is deleted.
+     *
+     * @param count the number of actions to write
+     */
+    private void spill(int count) {
+        Path segment = null;
+        try {
+            if (spillDirectory == null) {
+                spillDirectory = Files.createTempDirectory("gym-actions");
+                ownsSpillDirectory = true;
+            }
+            if (segments.isEmpty()) {
+                ShutdownCleanup.register(this);
+            }
+            segment = spillDirectory.resolve("actions-" + segments.size() + ".seg");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(segment)))) {
+                out.writeInt(count);
+                Iterator<ActionEvent> events = recent.iterator();
+                for (int i = 0; i < count; i++) {
+                    byte[] text = events.next().toString().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(text.length);
+                    out.write(text);
+                }
+            }
+            segments.add(segment);
+        } catch (IOException e) {
+            UncheckedIOException failure = new UncheckedIOException("Failed to spill action history to disk", e);
+            if (segment != null) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException cleanup) {
+                    failure.addSuppressed(cleanup);
+                }
+            }
+            throw failure;
+        }
+        for (int i = 0; i < count; i++) {
+            recent.pollFirst();
+        }
+        spilledCount += count;
+    }
+
+    /**
+     * Registers journals with segment files for deletion when the process exits.
+     * Holds one shutdown hook for all journals, however many segments they spill.
+     */
+    private static class ShutdownCleanup {
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(ShutdownCleanup::closeAll, "action-journal-cleanup"));
+        }
+
+        /**
+         * Adds a journal to the ones closed on exit.
+         *
+         * @param journal a journal that just created its first segment file
+         */
+        static void register(ActionJournal journal) {
+            spilledJournals.add(journal);
+        }
+
+        /**
+         * Closes every journal that still has segment files.
+         */
+        private static void closeAll() {
+            for (ActionJournal journal : spilledJournals) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    // Best effort while the process exits
+                }
+            }
+        }
+    }
+
+    /**
+     * Streams the actions of the segment files, then the in-memory actions.
+     * Each segment is read in one go, so no file is left open if iteration stops early.
+     */
+    private static class JournalIterator implements Iterator<String> {
+        private final Iterator<Path> segments;
+        private final Iterator<ActionEvent> recent;
+        private String[] segment = new String[0]; // Texts of the segment currently being read
+        private int position;
+
+        JournalIterator(List<Path> segments, ActionEvent[] recent) {
+            this.segments = segments.iterator();
+            this.recent = Arrays.asList(recent).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == segment.length) {
+                if (!segments.hasNext()) {
+                    return recent.hasNext();
+                }
+                segment = readSegment(segments.next());
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (position < segment.length) {
+                String text = segment[position];
+                segment[position++] = null;
+                return text;
+            }
+            return recent.next().toString();
+        }
+
+        /**
+         * Reads all action texts of a segment file and closes it.
+         *
+         * @param file the segment file
+         * @return the action texts, oldest first
+         * @throws UncheckedIOException if the file can't be read
+         */
+        private static String[] readSegment(Path file) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                String[] texts = new String[in.readInt()];
+                for (int i = 0; i < texts.length; i++) {
+                    byte[] text = new byte[in.readInt()];
+                    in.readFully(text);
+                    texts[i] = new String(text, StandardCharsets.UTF_8);
+                }
+                return texts;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read action history from disk", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package gym.management;
+
+/**
+ * The kinds of actions recorded in the gym's action history.
+ */
+public enum ActionKind {
+    /**
+     * A new secretary started working at the gym.
+     */
+    SecretaryStarted,
+
+    /**
+     * A client was registered with the gym.
+     */
+    ClientRegistered,
+
+    /**
+     * A batch of clients was registered with the gym.
+     */
+    ClientsRegistered,
+
+    /**
+     * A client was unregistered from the gym.
+     */
+    ClientUnregistered,
+
+    /**
+     * An instructor was hired.
+     */
+    InstructorHired,
+
+    /**
+     * A session was added to the schedule.
+     */
+    SessionCreated,
+
+    /**
+     * A client was registered to a session.
+     */
+    ClientRegisteredToSession,
+
+    /**
+     * A batch of clients was registered to a session.
+     */
+    ClientsRegisteredToSession,
+
+    /**
+     * A client failed to register to a session.
+     */
+    RegistrationFailed,
+
+    /**
+     * A client was added to the waitlist of a full session.
+     */
+    ClientWaitlisted,
+
+    /**
+     * A client on a waitlist was registered to the session when a spot freed up.
+     */
+    WaitlistPromoted,
+
+    /**
+     * A client cancelled their registration to a session and was refunded.
+     */
+    RegistrationCancelled,
+
+    /**
+     * A message was sent to the participants of a session.
+     */
+    SessionMessage,
+
+    /**
+     * A message was sent to the participants of all sessions on a date.
+     */
+    DateMessage,
+
+    /**
+     * A message was sent to all gym clients.
+     */
+    GymMessage,
+
+    /**
+     * All salaries were paid.
+     */
+    SalariesPaid,
+
+    /**
+     * All salaries for a single month were paid.
+     */
+    PeriodSalariesPaid,
+
+    /**
+     * Any other action, recorded as plain text.
+     */
+    Other
+}
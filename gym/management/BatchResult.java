@@ -0,0 +1,110 @@
+package gym.management;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a batch operation, reported per item in the order the items were given.
+ * Each item either succeeded with a result or failed with an error message.
+ *
+ * @param <T> the type of the result of a successful item
+ */
+public class BatchResult<T> {
+    private final List<T> results;
+    private final List<String> errors;
+    private int successCount;
+
+    /**
+     * Creates an empty result with room for a number of items.
+     *
+     * @param expectedSize the number of items in the batch
+     */
+    BatchResult(int expectedSize) {
+        results = new ArrayList<>(expectedSize);
+        errors = new ArrayList<>(expectedSize);
+        successCount = 0;
+    }
+
+    /**
+     * Adds the outcome of the next item as a success.
+     *
+     * @param result the result of the item
+     */
+    void addSuccess(T result) {
+        results.add(result);
+        errors.add(null);
+        successCount++;
+    }
+
+    /**
+     * Adds the outcome of the next item as a failure.
+     *
+     * @param error the message describing why the item failed
+     */
+    void addFailure(String error) {
+        results.add(null);
+        errors.add(error);
+    }
+
+    /**
+     * Turns a successful item into a failure.
+     *
+     * @param index the position of the item in the batch
+     * @param error the message describing why the item failed
+     */
+    void fail(int index, String error) {
+        if (errors.get(index) == null) {
+            successCount--;
+        }
+        results.set(index, null);
+        errors.set(index, error);
+    }
+
+    /**
+     * Returns the number of items in the batch.
+     *
+     * @return the number of items
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Returns the number of items that succeeded.
+     *
+     * @return the number of successful items
+     */
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * Checks if an item succeeded.
+     *
+     * @param index the position of the item in the batch
+     * @return true if the item succeeded, false otherwise
+     */
+    public boolean isSuccess(int index) {
+        return errors.get(index) == null;
+    }
+
+    /**
+     * Returns the result of an item.
+     *
+     * @param index the position of the item in the batch
+     * @return the result, or null if the item failed
+     */
+    public T getResult(int index) {
+        return results.get(index);
+    }
+
+    /**
+     * Returns the error of an item.
+     *
+     * @param index the position of the item in the batch
+     * @return the error message, or null if the item succeeded
+     */
+    public String getError(int index) {
+        return errors.get(index);
+    }
+}
@@ -1,50 +1,109 @@
 package gym.management;
 
+import gym.customers.BankAccount;
 import gym.customers.Client;
 import gym.customers.Person;
 import gym.management.Sessions.Session;
+import gym.management.Sessions.InstructorSchedule;
+import gym.management.Sessions.SessionCalendar;
+import gym.management.Sessions.SessionIndex;
+import gym.management.Sessions.SessionQuery;
+import gym.management.Sessions.SessionType;
 import gym.observer.Sender;
+import gym.time.DateCodec;
+import gym.time.GymClock;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Represents a gym management system.
  * Handles clients, instructors, sessions, and administrative actions.
- * Implements the Singleton design pattern to ensure only one instance of the gym exists.
+ * Each gym is one branch hosted by a {@link GymRegistry}; {@link #getInstance()} returns the default branch.
  */
 public class Gym extends Sender { // Gym now extends Sender
-    private static Gym instance;
+
+    private final String id;
     private String name;
     private Secretary secretary;
-    private List<Client> clients;
+    private final ReentrantReadWriteLock peopleLock; // Guards clients and instructors, which callers on
+                                                     // any thread and other gyms' lookups both use
+    private Map<Integer, Client> clients; // Clients keyed by ID, kept in registration order
     private List<Instructor> instructors;
-    private List<Session> sessions;
-    private List<String> actionHistory;
-    private double balance;
+    private final ReentrantReadWriteLock sessionLock; // Guards the session structures below, which the
+                                                      // archive sweeper and caller threads both use
+    private List<Session> sessions;   // All sessions in creation order, indexed by session ID
+    private List<Session> liveSessions; // Sessions not archived yet, in creation order
+    private SessionCalendar calendar; // Sessions that haven't started yet, indexed by date
+    private SessionCalendar archive;  // Sessions that have started, indexed by date
+    private volatile int archivedUntil; // Sessions starting at or before this epoch minute are archived
+    private int archivedCount;
+    private SessionIndex index;       // Live sessions by forum, type, instructor and free spots
+    private Payroll payroll;          // Teaching hours per instructor
+    private InstructorSchedule schedule; // Each instructor's sessions as time intervals
+    private ActionJournal actionHistory;
+    private LongAdder balanceCents; // Striped so concurrent bookings don't contend on one field
+    private final SecretaryMetrics metrics;
+    private final GymClock clock;               // Read by the gym's time checks; follows the studio clock by default
+    private volatile OperationLog operationLog; // Set while the gym's operations are being logged
+    private long snapshotSequence;              // Last logged operation contained in the loaded snapshot
 
     /**
-     * Private constructor to prevent direct instantiation.
-     * Initializes lists for clients, instructors, sessions, and action history.
+     * Package-private constructor; gyms are created through the {@link GymRegistry}.
+     * Initializes the client registry and the lists for instructors, sessions, and action history.
+     *
+     * @param id the ID of the gym in its registry
      */
-    private Gym() {
-        clients = new ArrayList<>();
+    Gym(String id) {
+        this.id = id;
+        peopleLock = new ReentrantReadWriteLock();
+        clients = new LinkedHashMap<>();
         instructors = new ArrayList<>();
+        sessionLock = new ReentrantReadWriteLock();
         sessions = new ArrayList<>();
-        actionHistory = new ArrayList<>();
-        balance = 0;
+        liveSessions = new ArrayList<>();
+        calendar = new SessionCalendar();
+        archive = new SessionCalendar();
+        archivedUntil = Integer.MIN_VALUE;
+        index = new SessionIndex();
+        payroll = new Payroll();
+        schedule = new InstructorSchedule();
+        actionHistory = new ActionJournal();
+        balanceCents = new LongAdder();
+        metrics = new SecretaryMetrics(this);
+        clock = new GymClock();
     }
 
     /**
-     * Returns the single instance of the Gym.
+     * Returns the default gym of the process-wide {@link GymRegistry}.
      *
      * @return the Gym instance
      */
     public static Gym getInstance() {
-        if (instance == null) {
-            instance = new Gym();
-        }
-        return instance;
+        return GymRegistry.getInstance().getGym(GymRegistry.DEFAULT_GYM_ID);
+    }
+
+    /**
+     * Returns the ID of the gym in its registry.
+     *
+     * @return the gym ID
+     */
+    public String getId() {
+        return id;
     }
 
     /**
@@ -54,11 +113,98 @@ public class Gym extends Sender { // Gym now extends Sender
      * @param salary the salary of the secretary
      */
     public void setSecretary(Person person, double salary) {
-        if (this.secretary != null) {
-            this.secretary.deactivate();
+        OperationLog log = operationLog;
+        long sequence = 0;
+        if (log != null) {
+            log.beginOperation();
         }
+        try {
+            if (this.secretary != null) {
+                this.secretary.deactivate();
+            }
+            this.secretary = Secretary.createSecretary(person, salary, this);
+            recordAction(ActionEvent.secretaryStarted(person.getName()));
+            if (log != null) {
+                sequence = log.secretaryChanged(person, salary);
+            }
+        } finally {
+            if (log != null) {
+                log.endOperation();
+            }
+        }
+        if (log != null) {
+            log.awaitSynced(sequence);
+        }
+    }
+
+    /**
+     * Installs a secretary restored from a snapshot, without recording an action.
+     *
+     * @param person the person representing the secretary
+     * @param salary the monthly salary of the secretary
+     */
+    void restoreSecretary(Person person, double salary) {
         this.secretary = Secretary.createSecretary(person, salary, this);
-        addAction("A new secretary has started working at the gym: " + person.getName());
+    }
+
+    /**
+     * Returns the log the gym's operations are written to.
+     *
+     * @return the operation log, or null if operations aren't logged
+     */
+    public OperationLog getOperationLog() {
+        return operationLog;
+    }
+
+    /**
+     * Attaches the log the gym's operations are written to.
+     *
+     * @param log the operation log, or null to stop logging
+     */
+    void attachOperationLog(OperationLog log) {
+        this.operationLog = log;
+    }
+
+    /**
+     * Returns the sequence number of the last logged operation contained in the snapshot the gym was loaded from.
+     *
+     * @return the sequence number, or 0 if the gym wasn't loaded from a snapshot
+     */
+    long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    /**
+     * Sets the sequence number of the last logged operation contained in the snapshot the gym was loaded from.
+     *
+     * @param sequence the sequence number
+     */
+    void setSnapshotSequence(long sequence) {
+        this.snapshotSequence = sequence;
+    }
+
+    /**
+     * Finds a person the gym knows, as a client, an instructor or the secretary.
+     *
+     * @param id the ID of the person
+     * @return the person, or null if the gym doesn't know the person
+     */
+    Person findPerson(int id) {
+        peopleLock.readLock().lock();
+        try {
+            Person person = clients.get(id);
+            if (person != null) {
+                return person;
+            }
+            for (Instructor instructor : instructors) {
+                if (instructor.getId() == id) {
+                    return instructor;
+                }
+            }
+        } finally {
+            peopleLock.readLock().unlock();
+        }
+        return secretary != null && secretary.getId() == id ? secretary : null;
     }
 
     /**
@@ -77,34 +223,86 @@ public class Gym extends Sender { // Gym now extends Sender
      * @return true if the client is registered, false otherwise
      */
     public boolean isClientRegistered(Client client) {
-        return clients.contains(client);
+        peopleLock.readLock().lock();
+        try {
+            return clients.containsKey(client.getId());
+        } finally {
+            peopleLock.readLock().unlock();
+        }
     }
 
     /**
-     * Adds a new client to the gym.
+     * Looks up a registered client by ID.
+     *
+     * @param id the ID of the client
+     * @return the registered client, or null if no client with that ID is registered
+     */
+    public Client getClient(int id) {
+        peopleLock.readLock().lock();
+        try {
+            return clients.get(id);
+        } finally {
+            peopleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a new client to the gym, unless a client with the same ID is already registered.
+     * The check and the insertion happen under one lock, so two concurrent calls can't both add the client.
      *
      * @param client the client to add
+     * @return true if the client was added, false if it was already registered
      */
-    public void addClient(Client client) {
-        clients.add(client);
+    public boolean addClient(Client client) {
+        peopleLock.writeLock().lock();
+        try {
+            return clients.putIfAbsent(client.getId(), client) == null;
+        } finally {
+            peopleLock.writeLock().unlock();
+        }
     }
 
     /**
      * Removes a client from the gym.
      *
      * @param client the client to remove
+     * @return true if the client was removed, false if it wasn't registered
+     */
+    public boolean removeClient(Client client) {
+        peopleLock.writeLock().lock();
+        try {
+            return clients.remove(client.getId()) != null;
+        } finally {
+            peopleLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns all clients registered in the gym, in registration order.
+     *
+     * @return an unmodifiable copy of the clients
      */
-    public void removeClient(Client client) {
-        clients.remove(client);
+    public Collection<Client> getClients() {
+        peopleLock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(clients.values()));
+        } finally {
+            peopleLock.readLock().unlock();
+        }
     }
 
     /**
-     * Returns the list of all clients registered in the gym.
+     * Returns the number of clients registered in the gym, without copying them.
      *
-     * @return the list of clients
+     * @return the number of clients
      */
-    public List<Client> getClients() {
-        return clients;
+    public int getClientCount() {
+        peopleLock.readLock().lock();
+        try {
+            return clients.size();
+        } finally {
+            peopleLock.readLock().unlock();
+        }
     }
 
     /**
@@ -113,34 +311,391 @@ public class Gym extends Sender { // Gym now extends Sender
      * @param instructor the instructor to add
      */
     public void addInstructor(Instructor instructor) {
-        instructors.add(instructor);
+        peopleLock.writeLock().lock();
+        try {
+            instructors.add(instructor);
+        } finally {
+            peopleLock.writeLock().unlock();
+        }
     }
 
     /**
-     * Returns the list of all instructors in the gym.
+     * Returns the list of all instructors in the gym, in the order they were hired.
      *
-     * @return the list of instructors
+     * @return an unmodifiable copy of the instructors
      */
     public List<Instructor> getInstructors() {
-        return instructors;
+        peopleLock.readLock().lock();
+        try {
+            return List.copyOf(instructors);
+        } finally {
+            peopleLock.readLock().unlock();
+        }
     }
 
     /**
-     * Adds a new session to the gym's schedule.
+     * Adds a new session to the gym's schedule and assigns it the next session ID, without checking
+     * whether its instructor is free. Used to restore sessions, which may predate the overlap check.
      *
      * @param session the session to add
+     * @throws IllegalStateException if the session was already added to a gym
      */
     public void addSession(Session session) {
+        sessionLock.writeLock().lock();
+        try {
+            insertSession(session);
+        } finally {
+            sessionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a new session to the gym's schedule if its instructor has no other session while it runs.
+     * The check and the insertion happen under one lock, so two concurrent calls can't double-book an instructor.
+     *
+     * @param session the session to add
+     * @return true if the session was added, false if its instructor is busy at that time
+     * @throws IllegalStateException if the session was already added to a gym
+     */
+    public boolean addSessionIfInstructorFree(Session session) {
+        sessionLock.writeLock().lock();
+        try {
+            if (!schedule.isFree(session.getInstructor(), session.getEpochMinute(), session.getEndEpochMinute())) {
+                return false;
+            }
+            insertSession(session);
+            return true;
+        } finally {
+            sessionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Assigns a session the next session ID and adds it to every session structure.
+     * The caller holds the write lock.
+     *
+     * @param session the session to add
+     */
+    private void insertSession(Session session) {
+        session.assignId(sessions.size());
+        session.attachClock(clock);
         sessions.add(session);
+        if (session.getEpochMinute() <= archivedUntil) {
+            session.markArchived();
+            archive.add(session);
+            archivedCount++;
+        } else {
+            liveSessions.add(session);
+            calendar.add(session);
+        }
+        index.add(session);
+        schedule.add(session);
+        payroll.recordSession(session);
     }
 
     /**
-     * Returns the list of all sessions in the gym.
+     * Returns all sessions in the gym, live and archived, in the order they were added.
+     * The list is a copy, so sessions added later don't show up in it.
      *
-     * @return the list of sessions
+     * @return a copy of all sessions
      */
     public List<Session> getSessions() {
-        return sessions;
+        sessionLock.readLock().lock();
+        try {
+            return new ArrayList<>(sessions);
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sessions that haven't been archived yet, in the order they were added.
+     * Sessions leave this list when the archive sweeper moves them to the archive.
+     *
+     * @return a copy of the live sessions
+     */
+    public List<Session> getLiveSessions() {
+        sessionLock.readLock().lock();
+        try {
+            return new ArrayList<>(liveSessions);
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the session with a given ID.
+     *
+     * @param id the session ID
+     * @return the session
+     * @throws IndexOutOfBoundsException if the gym has no session with that ID
+     */
+    public Session getSession(int id) {
+        sessionLock.readLock().lock();
+        try {
+            return sessions.get(id);
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of sessions in the gym, live and archived.
+     *
+     * @return the number of sessions
+     */
+    public int getSessionCount() {
+        sessionLock.readLock().lock();
+        try {
+            return sessions.size();
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the sessions whose start time has passed from the live timetable to the archive.
+     * Date lookups for days after the last sweep then only touch the live timetable.
+     * Safe to run while other threads add and look up sessions.
+     *
+     * @return the number of sessions archived
+     */
+    public int archivePastSessions() {
+        int now = clock.currentEpochMinute();
+        sessionLock.writeLock().lock();
+        try {
+            List<Session> past = calendar.removeUntil(now);
+            for (Session session : past) {
+                session.markArchived();
+                archive.add(session);
+                index.archive(session);
+            }
+            if (!past.isEmpty()) {
+                liveSessions.removeIf(Session::isArchived);
+            }
+            archivedUntil = now;
+            archivedCount += past.size();
+            return past.size();
+        } finally {
+            sessionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of sessions moved to the archive.
+     *
+     * @return the number of archived sessions
+     */
+    public int getArchivedSessionCount() {
+        sessionLock.readLock().lock();
+        try {
+            return archivedCount;
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of sessions in the live timetable.
+     *
+     * @return the number of live sessions
+     */
+    public int getLiveSessionCount() {
+        sessionLock.readLock().lock();
+        try {
+            return liveSessions.size();
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the running teaching-hour totals of the gym's instructors.
+     *
+     * @return the payroll
+     */
+    public Payroll getPayroll() {
+        return payroll;
+    }
+
+    /**
+     * Returns the instructors who could take a session in a given slot: those certified for the session type
+     * who have no other session while it would run. Useful for finding a replacement when rescheduling.
+     *
+     * @param type  the session type, which also sets the length of the slot
+     * @param start the start of the slot
+     * @return the free instructors, in the order they were hired
+     */
+    public List<Instructor> getFreeInstructors(SessionType type, LocalDateTime start) {
+        int from = DateCodec.toEpochMinute(start);
+        int to = from + type.getDurationMinutes();
+        List<Instructor> free = new ArrayList<>();
+        List<Instructor> hired = getInstructors();
+        sessionLock.readLock().lock();
+        try {
+            for (Instructor instructor : hired) {
+                if (instructor.isCertifiedFor(type) && schedule.isFree(instructor, from, to)) {
+                    free.add(instructor);
+                }
+            }
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+        return free;
+    }
+
+    /**
+     * Returns the sessions taking place on a specific day, ordered by start time.
+     *
+     * @param date the day to look up
+     * @return the sessions on that day
+     */
+    public List<Session> getSessionsOn(LocalDate date) {
+        sessionLock.readLock().lock();
+        try {
+            if (!isArchived(date)) {
+                return new ArrayList<>(calendar.getSessionsOn(date));
+            }
+            return concat(archive.getSessionsOn(date), calendar.getSessionsOn(date));
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sessions taking place in the seven days starting at {@code weekStart}.
+     *
+     * @param weekStart the first day of the week
+     * @return the sessions in that week, ordered by start time
+     */
+    public List<Session> getSessionsInWeek(LocalDate weekStart) {
+        sessionLock.readLock().lock();
+        try {
+            if (!isArchived(weekStart)) {
+                return calendar.getSessionsInWeek(weekStart);
+            }
+            return concat(archive.getSessionsInWeek(weekStart), calendar.getSessionsInWeek(weekStart));
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sessions starting at or after {@code from} and before {@code to}.
+     *
+     * @param from the start of the range (inclusive)
+     * @param to   the end of the range (exclusive)
+     * @return the sessions in the range, ordered by start time
+     */
+    public List<Session> getSessionsBetween(LocalDateTime from, LocalDateTime to) {
+        sessionLock.readLock().lock();
+        try {
+            if (!isArchived(from.toLocalDate())) {
+                return calendar.getSessionsBetween(from, to);
+            }
+            return concat(archive.getSessionsBetween(from, to), calendar.getSessionsBetween(from, to));
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every session a client can still join: sessions in the future, in a forum the client
+     * is eligible for, with a free spot, that the client isn't registered to.
+     * The forum check runs over the session index with the client's eligibility mask, so only
+     * sessions in matching forums are visited.
+     *
+     * @param client the client
+     * @return the joinable sessions, in the order they were added
+     */
+    public List<Session> getJoinableSessions(Client client) {
+        BitSet matching = index.matching(client.getEligibilityMask(clock.todayEpochDay()));
+        List<Session> joinable = new ArrayList<>();
+        sessionLock.readLock().lock();
+        try {
+            for (int id = matching.nextSetBit(0); id >= 0; id = matching.nextSetBit(id + 1)) {
+                Session session = sessions.get(id);
+                if (session.isInFuture() && !session.isFull() && !session.isClientRegistered(client)) {
+                    joinable.add(session);
+                }
+            }
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+        return joinable;
+    }
+
+    /**
+     * Returns the open sessions matching a query, ordered by start time.
+     * Open sessions are the ones that haven't started yet.
+     * <p>
+     * The type, forum, instructor and free-spot criteria are answered by the session index.
+     * With a date range closed on both sides, only the live sessions in that range are visited and checked
+     * against the index; otherwise only the sessions the index selected are visited.
+     *
+     * @param query the search criteria
+     * @return the matching sessions
+     */
+    public List<Session> findSessions(SessionQuery query) {
+        BitSet matching = index.matching(query);
+        List<Session> result = new ArrayList<>();
+        sessionLock.readLock().lock();
+        try {
+            if (query.hasDateRange()) {
+                for (Session session : calendar.getSessionsBetween(query.getFrom(), query.getTo())) {
+                    if (matching.get(session.getId()) && isOpen(session, query)) {
+                        result.add(session);
+                    }
+                }
+                return result;
+            }
+            for (int id = matching.nextSetBit(0); id >= 0; id = matching.nextSetBit(id + 1)) {
+                Session session = sessions.get(id);
+                if (isOpen(session, query)) {
+                    result.add(session);
+                }
+            }
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+        result.sort(Comparator.comparingInt(Session::getEpochMinute));
+        return result;
+    }
+
+    /**
+     * Checks the parts of a query the index doesn't answer: the session must not have started, must start
+     * within the query's date range, and must still have a free spot if the query asks for one.
+     *
+     * @param session a session selected by the index
+     * @param query   the search criteria
+     * @return true if the session is open and matches the query
+     */
+    private static boolean isOpen(Session session, SessionQuery query) {
+        return session.isInFuture() && query.isInDateRange(session) && !(query.isFreeSpotsOnly() && session.isFull());
+    }
+
+    /**
+     * Checks if the archive may hold sessions on or after a given day.
+     *
+     * @param date the first day of a lookup
+     * @return true if the lookup has to consult the archive
+     */
+    private boolean isArchived(LocalDate date) {
+        return archivedUntil != Integer.MIN_VALUE && date.toEpochDay() <= DateCodec.toEpochDay(archivedUntil);
+    }
+
+    /**
+     * Joins the archived and live sessions of a lookup. Archived sessions always start before live ones.
+     *
+     * @param archived the archived sessions, ordered by start time
+     * @param live     the live sessions, ordered by start time
+     * @return a new list with the sessions of both lists, ordered by start time
+     */
+    private static List<Session> concat(List<Session> archived, List<Session> live) {
+        List<Session> result = new ArrayList<>(archived.size() + live.size());
+        result.addAll(archived);
+        result.addAll(live);
+        return result;
     }
 
     /**
@@ -149,25 +704,83 @@ public class Gym extends Sender { // Gym now extends Sender
      * @param action the action to record
      */
     public void addAction(String action) {
-        actionHistory.add(action);
+        actionHistory.record(ActionEvent.other(action));
     }
 
     /**
-     * Returns the list of all recorded actions.
+     * Adds a typed action to the gym's action history.
+     *
+     * @param event the action to record
+     */
+    void recordAction(ActionEvent event) {
+        actionHistory.record(event);
+    }
+
+    /**
+     * Returns the text of all recorded actions, oldest first.
+     * Actions spilled to disk are streamed rather than loaded into memory.
      *
      * @return the action history
      */
-    public List<String> getActionHistory() {
+    public Iterable<String> getActionHistory() {
+        return actionHistory;
+    }
+
+    /**
+     * Returns the journal of all recorded actions.
+     *
+     * @return the action journal
+     */
+    public ActionJournal getActionJournal() {
         return actionHistory;
     }
 
+    /**
+     * Returns the clock the gym's time checks read: whether sessions have started, clients' ages,
+     * and which sessions the archive sweeper moves.
+     *
+     * @return the gym's clock
+     */
+    public GymClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Gives the gym a clock of its own, for example a simulated clock for a workload replay.
+     * Other gyms keep reading theirs.
+     *
+     * @param newClock the clock to use, or null to follow the studio clock again
+     */
+    public void setClock(Clock newClock) {
+        clock.set(newClock);
+    }
+
+    /**
+     * Returns the metrics of the secretary operations of this gym.
+     * Call {@link SecretaryMetrics#registerMBean()} to expose them through JMX.
+     *
+     * @return the secretary metrics
+     */
+    public SecretaryMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Adds an amount to the gym's balance.
      *
      * @param amount the amount to add
      */
     public void addBalance(double amount) {
-        balance += amount;
+        balanceCents.add(BankAccount.toCents(amount));
+    }
+
+    /**
+     * Adds an amount to the gym's balance.
+     *
+     * @param cents the amount to add, in cents
+     */
+    public void addBalanceCents(long cents) {
+        balanceCents.add(cents);
     }
 
     /**
@@ -176,7 +789,34 @@ public class Gym extends Sender { // Gym now extends Sender
      * @param amount the amount to deduct
      */
     public void deductBalance(double amount) {
-        balance -= amount;
+        balanceCents.add(-BankAccount.toCents(amount));
+    }
+
+    /**
+     * Returns the gym's balance.
+     *
+     * @return the balance
+     */
+    public double getBalance() {
+        return balanceCents.sum() / 100.0;
+    }
+
+    /**
+     * Returns the gym's balance in cents.
+     *
+     * @return the balance in cents
+     */
+    public long getBalanceCents() {
+        return balanceCents.sum();
+    }
+
+    /**
+     * Returns the name of the gym.
+     *
+     * @return the gym name
+     */
+    public String getName() {
+        return name;
     }
 
     /**
@@ -192,13 +832,21 @@ public class Gym extends Sender { // Gym now extends Sender
      * Sends a notification to all clients in the gym.
      *
      * @param message the notification message
+     * @return the number of clients notified
      */
-    public void notifyAllClients(String message) {
-        for (Client c : clients) {
-            attach(c);
-        }
-        notifyReceivers(message);
-        clearReceivers();
+    public int notifyAllClients(String message) {
+        return broadcast(getClients(), message);
+    }
+
+    /**
+     * Sends a notification to a single client.
+     *
+     * @param client  the client to notify
+     * @param message the notification message
+     * @return the number of clients notified
+     */
+    public int notifyClient(Client client, String message) {
+        return broadcast(Collections.singletonList(client), message);
     }
 
     /**
@@ -206,11 +854,10 @@ public class Gym extends Sender { // Gym now extends Sender
      *
      * @param session the session whose participants will be notified
      * @param message the notification message
+     * @return the number of participants notified
      */
-    public void notifySessionParticipants(Session session, String message) {
-        session.getParticipants().forEach(this::attach);
-        notifyReceivers(message);
-        clearReceivers();
+    public int notifySessionParticipants(Session session, String message) {
+        return broadcast(session.getParticipants(), message);
     }
 
     /**
@@ -218,55 +865,115 @@ public class Gym extends Sender { // Gym now extends Sender
      *
      * @param dateStr the date in "dd-MM-yyyy" format
      * @param message the notification message
+     * @return the number of participants notified
      */
-    public void notifySessionsOnDate(String dateStr, String message) {
-        for (Session s : sessions) {
-            if (s.getDateTime().toLocalDate().equals(java.time.LocalDate.parse(dateStr, java.time.format.DateTimeFormatter.ofPattern("dd-MM-yyyy")))) {
-                s.getParticipants().forEach(this::attach);
-            }
-        }
-        notifyReceivers(message);
-        clearReceivers();
+    public int notifySessionsOnDate(String dateStr, String message) {
+        return notifySessionsOnDate(LocalDate.ofEpochDay(DateCodec.parseDate(dateStr)), message);
     }
 
     /**
-     * Clears the list of receivers attached to the gym.
+     * Sends a notification to all participants in sessions on a specific date.
+     *
+     * @param date    the date of the sessions
+     * @param message the notification message
+     * @return the number of participants notified
      */
-    private void clearReceivers() {
-        getReceivers().clear();
+    public int notifySessionsOnDate(LocalDate date, String message) {
+        return broadcastOnce(getSessionsOn(date), Session::getParticipants, message);
     }
 
     /**
-     * Returns a string representation of the gym's data, including clients, instructors, and sessions.
+     * Writes the full gym report: the gym's details followed by its clients, employees, and sessions.
      *
-     * @return a string with the gym's details
+     * @param out where to write the report
+     * @throws IOException if writing fails
      */
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Gym Name: ").append(name).append("\n");
-        sb.append("Gym Secretary: ").append(secretary).append("\n");
-        sb.append("Gym Balance: ").append((int) balance).append("\n\n");
+    public void writeReport(Appendable out) throws IOException {
+        writeReport(out, 0, Integer.MAX_VALUE);
+    }
 
-        sb.append("Clients Data:\n");
-        for (Client client : clients) {
-            sb.append(client).append("\n");
+    /**
+     * Writes one page of the gym report, row by row, without building the report in memory.
+     * The offset and limit apply to each section separately; the employees section lists
+     * the instructors followed by the secretary.
+     *
+     * @param out    where to write the report
+     * @param offset the number of rows to skip at the start of each section
+     * @param limit  the maximum number of rows to write in each section
+     * @throws IOException              if writing fails
+     * @throws IllegalArgumentException if the offset or limit is negative
+     */
+    public void writeReport(Appendable out, int offset, int limit) throws IOException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
         }
+        out.append("Gym Name: ").append(name).append("\n");
+        out.append("Gym Secretary: ").append(String.valueOf(secretary)).append("\n");
+        out.append("Gym Balance: ").append(String.valueOf(balanceCents.sum() / 100)).append("\n\n");
 
-        sb.append("\nEmployees Data:\n");
-        for (Instructor instructor : instructors) {
-            sb.append(instructor).append("\n");
+        List<Client> clientPage = new ArrayList<>();
+        List<Instructor> instructorPage;
+        int instructorCount;
+        peopleLock.readLock().lock();
+        try {
+            Iterator<Client> clientRows = clients.values().iterator();
+            for (int i = 0; i < offset && clientRows.hasNext(); i++) {
+                clientRows.next();
+            }
+            for (int i = 0; i < limit && clientRows.hasNext(); i++) {
+                clientPage.add(clientRows.next());
+            }
+            instructorCount = instructors.size();
+            int instructorEnd = (int) Math.min((long) offset + limit, instructorCount);
+            instructorPage = offset < instructorEnd
+                    ? new ArrayList<>(instructors.subList(offset, instructorEnd)) : List.of();
+        } finally {
+            peopleLock.readLock().unlock();
+        }
+        out.append("Clients Data:\n");
+        for (Client client : clientPage) {
+            out.append(client.toString()).append("\n");
+        }
+
+        out.append("\nEmployees Data:\n");
+        for (Instructor instructor : instructorPage) {
+            out.append(instructor.toString()).append("\n");
+        }
+        if (offset <= instructorCount && (long) offset + limit > instructorCount) {
+            out.append(String.valueOf(secretary)).append("\n");
         }
-        sb.append(secretary).append("\n");
 
-        sb.append("\nSessions Data:\n");
-        for (int i = 0; i < sessions.size(); i++) {
-            sb.append(sessions.get(i));
-            if (i < sessions.size() - 1) {
-                sb.append("\n");
+        out.append("\nSessions Data:\n");
+        List<Session> page;
+        sessionLock.readLock().lock();
+        try {
+            int sessionEnd = (int) Math.min((long) offset + limit, sessions.size());
+            page = offset < sessionEnd ? new ArrayList<>(sessions.subList(offset, sessionEnd)) : List.of();
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+        for (int i = 0; i < page.size(); i++) {
+            out.append(page.get(i).toString());
+            if (i < page.size() - 1) {
+                out.append("\n");
             }
         }
+    }
 
+    /**
+     * Returns a string representation of the gym's data, including clients, instructors, and sessions.
+     * Prefer {@link #writeReport(Appendable)} for large gyms, which doesn't hold the whole report in memory.
+     *
+     * @return a string with the gym's details
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeReport(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // A StringBuilder never throws
+        }
         return sb.toString();
     }
 }
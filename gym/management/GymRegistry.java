@@ -0,0 +1,239 @@
+package gym.management;
+
+import gym.customers.Client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Hosts several independent gyms (branches) in one process, sharded by gym ID.
+ * Each gym has its own secretary, clients, sessions and balance, and its own worker thread.
+ * Tasks {@link #submit submitted} to one gym run one at a time on its worker, and tasks submitted
+ * to different gyms run in parallel without sharing state. Calls made directly on a gym or its
+ * secretary run on the caller's thread instead, so they are not serialized with submitted tasks.
+ */
+public class GymRegistry {
+    /**
+     * The ID of the gym returned by {@link Gym#getInstance()}.
+     */
+    public static final String DEFAULT_GYM_ID = "main";
+
+    private static final GymRegistry instance = new GymRegistry();
+    private static final ThreadLocal<Gym> workerGym = new ThreadLocal<>(); // Set on each gym's worker thread
+
+    private final Map<String, Shard> shards;
+    private ScheduledExecutorService archiveSweeper; // Started by startArchiveSweeper
+
+    /**
+     * Creates an empty registry.
+     */
+    public GymRegistry() {
+        shards = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the registry shared by the whole process.
+     *
+     * @return the GymRegistry instance
+     */
+    public static GymRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the gym with the given ID, creating it if it doesn't exist yet.
+     *
+     * @param gymId the ID of the gym
+     * @return the gym
+     */
+    public Gym getGym(String gymId) {
+        return shards.computeIfAbsent(gymId, id -> new Shard(new Gym(id))).gym;
+    }
+
+    /**
+     * Checks if a gym with the given ID exists.
+     *
+     * @param gymId the ID of the gym
+     * @return true if the gym exists, false otherwise
+     */
+    public boolean containsGym(String gymId) {
+        return shards.containsKey(gymId);
+    }
+
+    /**
+     * Removes a gym from the registry, stops its worker thread, and deletes the part of its
+     * action history that was spilled to disk.
+     *
+     * @param gymId the ID of the gym
+     * @return the removed gym, or null if no gym with that ID exists
+     * @throws UncheckedIOException if the spilled action history can't be deleted
+     */
+    public Gym removeGym(String gymId) {
+        Shard shard = shards.remove(gymId);
+        if (shard == null) {
+            return null;
+        }
+        shard.shutdown();
+        shard.gym.getMetrics().unregisterMBean();
+        try {
+            shard.gym.getActionJournal().close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return shard.gym;
+    }
+
+    /**
+     * Returns the IDs of all gyms in the registry.
+     *
+     * @return an unmodifiable view of the gym IDs
+     */
+    public Set<String> getGymIds() {
+        return Collections.unmodifiableSet(shards.keySet());
+    }
+
+    /**
+     * Runs a task on the worker thread of a gym.
+     * Tasks submitted to the same gym run one at a time, in submission order;
+     * tasks submitted to different gyms run in parallel.
+     * A task must not wait for another task submitted to its own gym, which would never start.
+     *
+     * @param gymId the ID of the gym, created if it doesn't exist yet
+     * @param task  the task to run
+     * @param <T>   the type of the task's result
+     * @return a future completed with the task's result
+     */
+    public <T> CompletableFuture<T> submit(String gymId, Function<Gym, T> task) {
+        Shard shard = shards.computeIfAbsent(gymId, id -> new Shard(new Gym(id)));
+        return CompletableFuture.supplyAsync(() -> task.apply(shard.gym), shard.worker());
+    }
+
+    /**
+     * Looks up a client in every gym, querying all gyms in parallel on their own worker threads.
+     * When called from a gym's worker thread, all gyms are queried on that thread instead: waiting for
+     * its own queue would never finish, and waiting for other workers could deadlock with a task there
+     * that is waiting for this one. The other gyms are then read through their client lock rather than
+     * their worker, so the result reflects each gym at the moment it was read, not after the tasks
+     * already queued there.
+     *
+     * @param clientId the ID of the client
+     * @return the gyms the client is registered in, mapped to the client record of each gym
+     */
+    public Map<String, Client> findClient(int clientId) {
+        List<String> gymIds = new ArrayList<>(shards.keySet());
+        Map<String, Client> found = new LinkedHashMap<>();
+        if (workerGym.get() != null) {
+            for (String gymId : gymIds) {
+                Shard shard = shards.get(gymId);
+                Client client = shard == null ? null : shard.gym.getClient(clientId);
+                if (client != null) {
+                    found.put(gymId, client);
+                }
+            }
+            return found;
+        }
+        List<CompletableFuture<Client>> lookups = new ArrayList<>();
+        for (String gymId : gymIds) {
+            lookups.add(submit(gymId, gym -> gym.getClient(clientId)));
+        }
+        for (int i = 0; i < gymIds.size(); i++) {
+            Client client = lookups.get(i).join();
+            if (client != null) {
+                found.put(gymIds.get(i), client);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Starts a background sweeper that periodically archives the past sessions of every gym.
+     * Each sweep runs on the gym's own worker thread; the gym locks its session structures while it sweeps,
+     * so lookups made directly from other threads stay safe.
+     *
+     * @param period the time between two sweeps
+     */
+    public synchronized void startArchiveSweeper(Duration period) {
+        stopArchiveSweeper();
+        archiveSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gym-archive-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, period.toMillis());
+        archiveSweeper.scheduleWithFixedDelay(() -> {
+            for (Shard shard : shards.values()) {
+                try {
+                    CompletableFuture.runAsync(shard.gym::archivePastSessions, shard.worker()).join();
+                } catch (RuntimeException e) {
+                    // The gym was removed meanwhile, or the sweep failed; try again next period
+                }
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the archive sweeper, if it was started.
+     */
+    public synchronized void stopArchiveSweeper() {
+        if (archiveSweeper != null) {
+            archiveSweeper.shutdown();
+            archiveSweeper = null;
+        }
+    }
+
+    /**
+     * Stops the worker threads of all gyms and the archive sweeper. Tasks already submitted still run.
+     */
+    public void shutdown() {
+        stopArchiveSweeper();
+        for (Shard shard : shards.values()) {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * A gym together with the worker thread that runs its tasks.
+     */
+    private static class Shard {
+        private final Gym gym;
+        private ExecutorService worker; // Started on first use
+
+        Shard(Gym gym) {
+            this.gym = gym;
+        }
+
+        synchronized ExecutorService worker() {
+            if (worker == null) {
+                worker = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(() -> {
+                        workerGym.set(gym);
+                        runnable.run();
+                    }, "gym-" + gym.getId());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return worker;
+        }
+
+        synchronized void shutdown() {
+            if (worker != null) {
+                worker.shutdown();
+            }
+        }
+    }
+}
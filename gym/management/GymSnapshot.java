@@ -0,0 +1,334 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionFactory;
+import gym.management.Sessions.SessionType;
+import gym.time.DateCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves the state of a gym to a compact binary file and loads it back.
+ * <p>
+ * A snapshot holds the gym's name and balance, every person with their balance, the secretary,
+ * the clients, the instructors with their certifications, the sessions with their participants,
+ * the person ID counter, and the sequence number of the last operation logged in the {@link OperationLog}
+ * before the snapshot. Each person is stored once and referenced by position, so a client and an
+ * instructor that are the same person share one bank account again after loading.
+ * Participants who have since left the gym and session instructors the gym never hired are stored too,
+ * and come back as session participants and instructors only.
+ * Notifications, the action history and session waitlists are not part of a snapshot.
+ * <p>
+ * Snapshots are written to a temporary file that is synced to disk and then replaces the target,
+ * and the directory is synced after the rename, so a crash while saving leaves either the previous
+ * or the new snapshot intact. Loading reads the file through a memory-mapped buffer.
+ */
+public class GymSnapshot {
+    private static final int MAGIC = 0x47594D53; // "GYMS"
+    private static final int VERSION = 3; // Version 1 had no operation log sequence number,
+                                          // version 2 no instructors that weren't hired
+    private static final Gender[] GENDERS = Gender.values();
+    private static final SessionType[] SESSION_TYPES = SessionType.values();
+    private static final ForumType[] FORUM_TYPES = ForumType.values();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private GymSnapshot() {
+    }
+
+    /**
+     * Saves the state of a gym. The gym must not be changed while it is being saved;
+     * {@link OperationLog#checkpoint} holds back logged operations while it saves, and otherwise
+     * submit the save to the gym's worker thread through {@link GymRegistry#submit} if other threads use it.
+     * The file is on disk when this method returns.
+     *
+     * @param gym  the gym to save
+     * @param file the snapshot file, replaced if it exists
+     * @throws IOException if the file can't be written
+     */
+    public static void save(Gym gym, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            write(gym, out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Syncs a directory, so a file renamed into it survives a crash.
+     * Platforms that can't open a directory as a file, like Windows, persist renames without it.
+     *
+     * @param directory the directory
+     * @throws IOException if the directory can't be synced
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return; // Directories can't be opened on this platform
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Loads a snapshot into an empty gym.
+     *
+     * @param file the snapshot file
+     * @param gym  the gym to fill, typically new from {@link GymRegistry#getGym}
+     * @throws IOException           if the file can't be read or is not a valid snapshot
+     * @throws IllegalStateException if the gym already has clients, instructors or sessions
+     */
+    public static void load(Path file, Gym gym) throws IOException {
+        if (gym.getClientCount() != 0 || !gym.getInstructors().isEmpty() || gym.getSessionCount() != 0) {
+            throw new IllegalStateException("A snapshot can only be loaded into an empty gym");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            read(buffer, gym);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Truncated gym snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Writes the state of a gym.
+     *
+     * @param gym the gym to write
+     * @param out where to write it
+     * @throws IOException if writing fails
+     */
+    private static void write(Gym gym, DataOutputStream out) throws IOException {
+        Map<Integer, Person> persons = new LinkedHashMap<>();
+        Secretary secretary = gym.getSecretary();
+        if (secretary != null) {
+            persons.putIfAbsent(secretary.getId(), secretary);
+        }
+        Collection<Client> clients = gym.getClients();
+        for (Client client : clients) {
+            persons.putIfAbsent(client.getId(), client);
+        }
+        List<Instructor> instructors = new ArrayList<>(gym.getInstructors());
+        Map<Instructor, Integer> instructorIndexes = new HashMap<>();
+        for (int i = 0; i < instructors.size(); i++) {
+            instructorIndexes.putIfAbsent(instructors.get(i), i);
+        }
+        int hiredCount = instructors.size();
+        List<Session> sessions = gym.getSessions();
+        for (Session session : sessions) {
+            if (instructorIndexes.putIfAbsent(session.getInstructor(), instructors.size()) == null) {
+                instructors.add(session.getInstructor());
+            }
+        }
+        for (Instructor instructor : instructors) {
+            persons.putIfAbsent(instructor.getId(), instructor);
+        }
+        for (Session session : sessions) {
+            for (Client participant : session.getParticipants()) {
+                persons.putIfAbsent(participant.getId(), participant);
+            }
+        }
+        Map<Integer, Integer> positions = new HashMap<>(persons.size() * 4 / 3 + 1);
+        for (Integer id : persons.keySet()) {
+            positions.put(id, positions.size());
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, gym.getName());
+        out.writeLong(gym.getBalanceCents());
+        out.writeInt(Person.getNextId());
+        OperationLog log = gym.getOperationLog();
+        out.writeLong(log == null ? gym.getSnapshotSequence() : log.getLastSequence());
+
+        out.writeInt(persons.size());
+        for (Person person : persons.values()) {
+            out.writeInt(person.getId());
+            writeString(out, person.getName());
+            out.writeByte(person.getGender().ordinal());
+            out.writeLong(person.getDateOfBirth().toEpochDay());
+            out.writeLong(person.getBalanceCents());
+        }
+
+        out.writeBoolean(secretary != null);
+        if (secretary != null) {
+            out.writeInt(positions.get(secretary.getId()));
+            out.writeDouble(secretary.getSalary());
+        }
+
+        out.writeInt(clients.size());
+        for (Client client : clients) {
+            out.writeInt(positions.get(client.getId()));
+        }
+
+        out.writeInt(instructors.size());
+        for (int i = 0; i < instructors.size(); i++) {
+            Instructor instructor = instructors.get(i);
+            out.writeBoolean(i < hiredCount);
+            out.writeInt(positions.get(instructor.getId()));
+            out.writeDouble(instructor.getSalaryPerHour());
+            List<SessionType> certified = instructor.getCertifiedSessions();
+            out.writeByte(certified.size());
+            for (SessionType type : certified) {
+                out.writeByte(type.ordinal());
+            }
+        }
+
+        out.writeInt(sessions.size());
+        for (Session session : sessions) {
+            out.writeByte(session.getType().ordinal());
+            out.writeInt(session.getEpochMinute());
+            out.writeByte(session.getForum().ordinal());
+            out.writeInt(instructorIndexes.get(session.getInstructor()));
+            List<Client> participants = session.getParticipants();
+            out.writeInt(participants.size());
+            for (Client participant : participants) {
+                out.writeInt(positions.get(participant.getId()));
+            }
+        }
+    }
+
+    /**
+     * Reads the state of a gym.
+     *
+     * @param in  the snapshot contents
+     * @param gym the empty gym to fill
+     * @throws IOException if the contents are not a valid snapshot
+     */
+    private static void read(ByteBuffer in, Gym gym) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a gym snapshot");
+        }
+        int version = in.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported gym snapshot version: " + version);
+        }
+        gym.setName(readString(in));
+        gym.addBalanceCents(in.getLong());
+        Person.reserveIds(in.getInt());
+        gym.setSnapshotSequence(version >= 2 ? in.getLong() : 0);
+
+        Person[] persons = new Person[in.getInt()];
+        for (int i = 0; i < persons.length; i++) {
+            int id = in.getInt();
+            String name = readString(in);
+            Gender gender = GENDERS[in.get()];
+            LocalDate dateOfBirth = LocalDate.ofEpochDay(in.getLong());
+            persons[i] = Person.restore(id, name, gender, dateOfBirth, in.getLong());
+        }
+
+        if (in.get() != 0) {
+            gym.restoreSecretary(persons[in.getInt()], in.getDouble());
+        }
+
+        int clientCount = in.getInt();
+        Client[] clients = new Client[persons.length]; // Indexed by person position
+        for (int i = 0; i < clientCount; i++) {
+            int position = in.getInt();
+            clients[position] = new Client(persons[position]);
+            gym.addClient(clients[position]);
+        }
+
+        int instructorCount = in.getInt();
+        List<Instructor> instructors = new ArrayList<>(instructorCount);
+        for (int i = 0; i < instructorCount; i++) {
+            boolean hired = version < 3 || in.get() != 0;
+            Person person = persons[in.getInt()];
+            double salaryPerHour = in.getDouble();
+            int certifiedCount = in.get();
+            List<SessionType> certified = new ArrayList<>(certifiedCount);
+            for (int j = 0; j < certifiedCount; j++) {
+                certified.add(SESSION_TYPES[in.get()]);
+            }
+            Instructor instructor = new Instructor(person, salaryPerHour, certified);
+            instructors.add(instructor);
+            if (hired) {
+                gym.addInstructor(instructor);
+            }
+        }
+
+        int sessionCount = in.getInt();
+        for (int i = 0; i < sessionCount; i++) {
+            SessionType type = SESSION_TYPES[in.get()];
+            String dateTime = DateCodec.formatDateTime(in.getInt());
+            ForumType forum = FORUM_TYPES[in.get()];
+            Instructor instructor = instructors.get(in.getInt());
+            Session session = SessionFactory.createSession(type, dateTime, forum, instructor);
+            int participantCount = in.getInt();
+            session.reserveSeats(participantCount);
+            for (int j = 0; j < participantCount; j++) {
+                int position = in.getInt();
+                if (clients[position] == null) {
+                    clients[position] = new Client(persons[position]); // Left the gym since booking
+                }
+                session.registerClient(clients[position]);
+            }
+            gym.addSession(session);
+        }
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     *
+     * @param out   where to write the string
+     * @param value the string, or null
+     * @throws IOException if writing fails
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in the snapshot contents
+     * @return the string, or null
+     */
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
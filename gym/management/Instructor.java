@@ -3,6 +3,7 @@ package gym.management;
 import gym.customers.Person;
 import gym.management.Sessions.SessionType;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -36,6 +37,15 @@ public class Instructor extends Person {
         return certifiedSessions.contains(type);
     }
 
+    /**
+     * Gets the session types the instructor is certified to teach.
+     *
+     * @return an unmodifiable list of session types
+     */
+    public List<SessionType> getCertifiedSessions() {
+        return Collections.unmodifiableList(certifiedSessions);
+    }
+
     /**
      * Gets the hourly salary of the instructor.
      *
@@ -0,0 +1,812 @@
+package gym.management;
+
+import gym.Exception.ClientNotRegisteredException;
+import gym.Exception.DuplicateClientException;
+import gym.Exception.InstructorNotQualifiedException;
+import gym.Exception.InvalidAgeException;
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import gym.time.DateCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the state-changing operations of a gym, written before each operation is acknowledged.
+ * <p>
+ * Every record carries a sequence number and a checksum. A logged operation applies its change and appends
+ * its record between {@link #beginOperation} and {@link #endOperation}, so records are in the order the
+ * changes were applied. Records are collected in memory and written with group commit: the first caller
+ * waiting for its record writes and syncs everything collected so far, and callers arriving meanwhile wait
+ * for the next sync, so many concurrent bookings share one fsync. If a write fails, the log rejects every
+ * later operation before it is applied; the operation whose write failed stays applied in memory but is not
+ * durable, and the gym should be recovered from disk. Joining or leaving a session's waitlist is not logged,
+ * so waitlists are empty after recovery; a promotion from a waitlist is logged as a booking.
+ * <p>
+ * {@link #open} replays the records newer than the gym's last snapshot, drops a partly written record
+ * at the end of the file, and attaches the log to the gym. {@link #checkpoint} saves a snapshot and
+ * empties the log.
+ */
+public class OperationLog implements Closeable {
+    private static final byte SECRETARY_CHANGED = 1;
+    private static final byte CLIENT_REGISTERED = 2;
+    private static final byte CLIENT_UNREGISTERED = 3;
+    private static final byte INSTRUCTOR_HIRED = 4;
+    private static final byte INDEXED_SESSION_ADDED = 5; // Logged the instructor by position; no longer written
+    private static final byte CLIENT_REGISTERED_TO_SESSION = 6;
+    private static final byte SALARIES_PAID = 7;
+    private static final byte PERIOD_SALARIES_PAID = 8;
+    private static final byte REGISTRATION_CANCELLED = 9;
+    private static final byte SESSION_ADDED = 10;
+
+    private static final int HEADER_BYTES = 4 + 8 + 1; // Length, sequence number and type
+    private static final Gender[] GENDERS = Gender.values();
+    private static final SessionType[] SESSION_TYPES = SessionType.values();
+    private static final ForumType[] FORUM_TYPES = ForumType.values();
+
+    private final Gym gym;
+    private final FileChannel channel;
+    private final ReentrantLock operationLock;       // Held while an operation is applied and logged, and by checkpoints
+    private final ReentrantLock lock;
+    private final Condition synced;
+    private final ByteArrayOutputStream recordBytes; // Scratch buffer for encoding one record
+    private final DataOutputStream record;
+    private ByteArrayOutputStream pending;           // Records not yet written to the file
+    private long lastSequence;                       // Sequence number of the last record appended
+    private long syncedSequence;                     // Sequence number of the last record on disk
+    private boolean syncing;
+    private volatile IOException failure;            // Set if a write failed; the log then rejects all records
+    private final List<String> skippedRecords;       // Records recovery found no longer apply
+
+    /**
+     * Creates a log over an open file.
+     *
+     * @param gym          the gym whose operations are logged
+     * @param channel      the log file, positioned at its end
+     * @param lastSequence   the sequence number of the last record in the file or the gym's snapshot
+     * @param skippedRecords the records recovery skipped
+     */
+    private OperationLog(Gym gym, FileChannel channel, long lastSequence, List<String> skippedRecords) {
+        this.gym = gym;
+        this.channel = channel;
+        this.operationLock = new ReentrantLock();
+        this.lock = new ReentrantLock();
+        this.synced = lock.newCondition();
+        this.recordBytes = new ByteArrayOutputStream(128);
+        this.record = new DataOutputStream(recordBytes);
+        this.pending = new ByteArrayOutputStream(4096);
+        this.lastSequence = lastSequence;
+        this.syncedSequence = lastSequence;
+        this.skippedRecords = skippedRecords;
+    }
+
+    /**
+     * Opens the log of a gym, replays the operations it holds that are newer than the gym's state,
+     * and attaches it to the gym so new operations are logged.
+     * Load the gym's snapshot with {@link GymSnapshot#load} first, if there is one.
+     * An operation that no longer applies to the gym, like a booking for a session that is already full,
+     * is skipped rather than failing the recovery; {@link #getSkippedRecords} lists them.
+     *
+     * @param file the log file, created if it doesn't exist
+     * @param gym  the gym to recover
+     * @return the opened log
+     * @throws IOException if the file can't be read or holds a malformed record
+     */
+    public static OperationLog open(Path file, Gym gym) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            List<String> skippedRecords = new ArrayList<>();
+            long lastSequence = replay(channel, gym, skippedRecords);
+            OperationLog log = new OperationLog(gym, channel, lastSequence, skippedRecords);
+            gym.attachOperationLog(log);
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Saves a snapshot of the gym and empties the log, whose operations the snapshot now contains.
+     * Logged operations wait until the checkpoint is done, so none is applied after the snapshot
+     * and then lost with the log.
+     *
+     * @param snapshotFile the snapshot file, replaced if it exists
+     * @throws IOException if the snapshot can't be saved or the log can't be emptied
+     */
+    public void checkpoint(Path snapshotFile) throws IOException {
+        operationLock.lock();
+        try {
+            sync();
+            GymSnapshot.save(gym, snapshotFile);
+            lock.lock();
+            try {
+                // A crash before this point leaves records the snapshot already contains; recovery skips them
+                channel.truncate(0);
+                channel.force(true);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            operationLock.unlock();
+        }
+    }
+
+    /**
+     * Starts a logged operation. Apply the operation's change and append its record before calling
+     * {@link #endOperation}, then wait for the record with {@link #awaitSynced} outside.
+     * Blocks while a checkpoint is running.
+     *
+     * @throws UncheckedIOException if the log has failed; the operation must then not be applied
+     */
+    void beginOperation() {
+        operationLock.lock();
+        IOException failed = failure;
+        if (failed != null) {
+            operationLock.unlock();
+            throw new UncheckedIOException("The operation log failed", failed);
+        }
+    }
+
+    /**
+     * Ends a logged operation started with {@link #beginOperation}.
+     */
+    void endOperation() {
+        operationLock.unlock();
+    }
+
+    /**
+     * Returns the records that recovery skipped because they no longer applied to the gym.
+     *
+     * @return a description of each skipped record, in log order
+     */
+    public List<String> getSkippedRecords() {
+        return Collections.unmodifiableList(skippedRecords);
+    }
+
+    /**
+     * Returns the sequence number of the last logged operation.
+     *
+     * @return the last sequence number
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is on disk.
+     *
+     * @throws UncheckedIOException if writing the log fails
+     */
+    public void sync() {
+        awaitSynced(getLastSequence());
+    }
+
+    /**
+     * Detaches the log from the gym and closes the file, after writing the records appended so far.
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            gym.attachOperationLog(null);
+            channel.close();
+        }
+    }
+
+    /**
+     * Logs a new secretary.
+     *
+     * @param person the person representing the secretary
+     * @param salary the monthly salary of the secretary
+     * @return the sequence number of the record
+     */
+    long secretaryChanged(Person person, double salary) {
+        lock.lock();
+        try {
+            begin(SECRETARY_CHANGED);
+            writePerson(person);
+            record.writeDouble(salary);
+            return end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs the registration of a client.
+     *
+     * @param client the registered client
+     * @return the sequence number of the record
+     */
+    long clientRegistered(Client client) {
+        lock.lock();
+        try {
+            begin(CLIENT_REGISTERED);
+            writePerson(client);
+            return end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs the removal of a client.
+     *
+     * @param client the unregistered client
+     * @return the sequence number of the record
+     */
+    long clientUnregistered(Client client) {
+        lock.lock();
+        try {
+            begin(CLIENT_UNREGISTERED);
+            record.writeInt(client.getId());
+            return end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs a new instructor.
+     *
+     * @param instructor the hired instructor
+     * @return the sequence number of the record
+     */
+    long instructorHired(Instructor instructor) {
+        lock.lock();
+        try {
+            begin(INSTRUCTOR_HIRED);
+            writeInstructor(instructor);
+            return end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs a new session. A hired instructor is logged by person ID; an instructor the gym never hired,
+     * like one from another gym, is logged in full, so replay can rebuild them without hiring them.
+     *
+     * @param session the added session
+     * @return the sequence number of the record
+     */
+    long sessionAdded(Session session) {
+        lock.lock();
+        try {
+            begin(SESSION_ADDED);
+            record.writeByte(session.getType().ordinal());
+            record.writeInt(session.getEpochMinute());
+            record.writeByte(session.getForum().ordinal());
+            Instructor instructor = session.getInstructor();
+            boolean hired = isHired(instructor);
+            record.writeBoolean(hired);
+            if (hired) {
+                record.writeInt(instructor.getId());
+            } else {
+                writeInstructor(instructor);
+            }
+            return end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs the registration of a client to a session, including its payment.
+     *
+     * @param client  the registered client
+     * @param session the session
+     * @return the sequence number of the record
+     */
+    long clientRegisteredToSession(Client client, Session session) {
+        lock.lock();
+        try {
+            begin(CLIENT_REGISTERED_TO_SESSION);
+            record.writeInt(client.getId());
+            record.writeInt(session.getId());
+            return end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs the cancellation of a client's registration to a session, including its refund.
+     *
+     * @param client  the client
+     * @param session the session
+     * @return the sequence number of the record
+     */
+    long registrationCancelled(Client client, Session session) {
+        lock.lock();
+        try {
+            begin(REGISTRATION_CANCELLED);
+            record.writeInt(client.getId());
+            record.writeInt(session.getId());
+            return end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs a payroll run.
+     *
+     * @param period the month paid for, or null for all sessions
+     * @return the sequence number of the record
+     */
+    long salariesPaid(YearMonth period) {
+        lock.lock();
+        try {
+            begin(period == null ? SALARIES_PAID : PERIOD_SALARIES_PAID);
+            if (period != null) {
+                record.writeInt(period.getYear() * 12 + period.getMonthValue() - 1);
+            }
+            return end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a record is on disk. If no write is in progress, the caller writes and syncs
+     * every pending record itself; otherwise it waits for the write in progress, and then for the next one.
+     *
+     * @param sequence the sequence number of the record
+     * @throws UncheckedIOException if writing the log fails
+     */
+    void awaitSynced(long sequence) {
+        lock.lock();
+        try {
+            while (syncedSequence < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("The operation log failed", failure);
+                }
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                ByteArrayOutputStream batch = pending;
+                long batchEnd = lastSequence;
+                pending = new ByteArrayOutputStream(Math.max(4096, batch.size()));
+                lock.unlock();
+                try {
+                    ByteBuffer bytes = ByteBuffer.wrap(batch.toByteArray());
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    lock.lock();
+                    failure = e;
+                    syncing = false;
+                    synced.signalAll();
+                    throw new UncheckedIOException("The operation log failed", e);
+                }
+                lock.lock();
+                syncing = false;
+                syncedSequence = batchEnd;
+                synced.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts encoding a record.
+     *
+     * @param type the record type
+     * @throws IOException never; the record is encoded in memory
+     */
+    private void begin(byte type) throws IOException {
+        if (!operationLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Records are appended between beginOperation and endOperation");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("The operation log failed", failure);
+        }
+        recordBytes.reset();
+        record.writeInt(0); // Length, filled in by end()
+        record.writeLong(lastSequence + 1);
+        record.writeByte(type);
+    }
+
+    /**
+     * Finishes the record being encoded and appends it to the pending records.
+     *
+     * @return the sequence number of the record
+     */
+    private long end() {
+        byte[] bytes = recordBytes.toByteArray();
+        int length = bytes.length - 4;
+        bytes[0] = (byte) (length >>> 24);
+        bytes[1] = (byte) (length >>> 16);
+        bytes[2] = (byte) (length >>> 8);
+        bytes[3] = (byte) length;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 4, length);
+        pending.write(bytes, 0, bytes.length);
+        int checksum = (int) crc.getValue();
+        pending.write(checksum >>> 24);
+        pending.write(checksum >>> 16);
+        pending.write(checksum >>> 8);
+        pending.write(checksum);
+        return ++lastSequence;
+    }
+
+    /**
+     * Checks if an instructor is one of the gym's hired instructors, and not just the same person.
+     *
+     * @param instructor the instructor
+     * @return true if the gym hired this instructor
+     */
+    private boolean isHired(Instructor instructor) {
+        for (Instructor hired : gym.getInstructors()) {
+            if (hired == instructor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encodes the details of an instructor: the person, the hourly salary and the certifications.
+     *
+     * @param instructor the instructor
+     * @throws IOException never; the record is encoded in memory
+     */
+    private void writeInstructor(Instructor instructor) throws IOException {
+        writePerson(instructor);
+        record.writeDouble(instructor.getSalaryPerHour());
+        List<SessionType> certified = instructor.getCertifiedSessions();
+        record.writeByte(certified.size());
+        for (SessionType type : certified) {
+            record.writeByte(type.ordinal());
+        }
+    }
+
+    /**
+     * Encodes the details of a person.
+     *
+     * @param person the person
+     * @throws IOException never; the record is encoded in memory
+     */
+    private void writePerson(Person person) throws IOException {
+        record.writeInt(person.getId());
+        byte[] name = person.getName().getBytes(StandardCharsets.UTF_8);
+        record.writeInt(name.length);
+        record.write(name);
+        record.writeByte(person.getGender().ordinal());
+        record.writeLong(person.getDateOfBirth().toEpochDay());
+        record.writeLong(person.getBalanceCents());
+    }
+
+    /**
+     * Replays the records in a log file that are newer than the gym's state, and drops a partly written
+     * record at the end of the file.
+     *
+     * @param channel        the log file
+     * @param gym            the gym to apply the records to
+     * @param skippedRecords receives a description of each record that no longer applies to the gym
+     * @return the sequence number of the last record in the file, or of the gym's snapshot if it is newer
+     * @throws IOException if the file can't be read or a record is malformed
+     */
+    private static long replay(FileChannel channel, Gym gym, List<String> skippedRecords) throws IOException {
+        long lastSequence = gym.getSnapshotSequence();
+        Map<Integer, Instructor> sessionInstructors = new HashMap<>(); // Instructors of restored sessions by ID
+        for (Session session : gym.getSessions()) {
+            sessionInstructors.putIfAbsent(session.getInstructor().getId(), session.getInstructor());
+        }
+        ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        int validEnd = 0;
+        while (in.remaining() >= 4) {
+            int start = in.position();
+            int length = in.getInt();
+            if (length < HEADER_BYTES - 4 || length + 4 > in.remaining()) {
+                break; // Torn write at the end of the log
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer body = in.slice();
+            body.limit(length);
+            crc.update(body);
+            in.position(start + 4 + length);
+            if ((int) crc.getValue() != in.getInt()) {
+                break;
+            }
+            in.position(start + 4);
+            long sequence = in.getLong();
+            byte type = in.get();
+            if (sequence > lastSequence) {
+                try {
+                    apply(type, in, gym, sessionInstructors);
+                } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                    throw new IOException("Malformed operation log record " + sequence, e);
+                } catch (StaleRecordException e) {
+                    if (type == SESSION_ADDED || type == INDEXED_SESSION_ADDED) {
+                        // Session IDs are positions, so every later session would get the wrong ID
+                        throw new IOException("Logged session " + sequence + " can't be restored", e);
+                    }
+                    skippedRecords.add("Operation " + sequence + ": " + e.getMessage());
+                }
+                lastSequence = sequence;
+            }
+            in.position(start + 4 + length + 4);
+            validEnd = in.position();
+        }
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        return lastSequence;
+    }
+
+    /**
+     * Applies one logged operation to a gym.
+     *
+     * @param type               the record type
+     * @param in                 the record contents after the type
+     * @param gym                the gym
+     * @param sessionInstructors the instructors of the gym's sessions by person ID, extended as sessions are added
+     * @throws StaleRecordException if the operation no longer applies to the gym
+     * @throws IOException          if the record type is unknown
+     */
+    private static void apply(byte type, ByteBuffer in, Gym gym, Map<Integer, Instructor> sessionInstructors)
+            throws IOException {
+        try {
+            switch (type) {
+                case SECRETARY_CHANGED:
+                    gym.setSecretary(readPerson(in, gym), in.getDouble());
+                    break;
+                case CLIENT_REGISTERED:
+                    secretary(gym).registerClient(readPerson(in, gym));
+                    break;
+                case CLIENT_UNREGISTERED:
+                    secretary(gym).unregisterClient(client(gym, in.getInt()));
+                    break;
+                case INSTRUCTOR_HIRED:
+                    Instructor hired = readInstructor(in, gym);
+                    secretary(gym).hireInstructor(hired, hired.getSalaryPerHour(), hired.getCertifiedSessions());
+                    break;
+                case INDEXED_SESSION_ADDED:
+                case SESSION_ADDED:
+                    SessionType sessionType = SESSION_TYPES[in.get()];
+                    String dateTime = DateCodec.formatDateTime(in.getInt());
+                    ForumType forum = FORUM_TYPES[in.get()];
+                    Instructor instructor;
+                    if (type == INDEXED_SESSION_ADDED) {
+                        instructor = instructor(gym, in.getInt());
+                    } else if (in.get() != 0) {
+                        instructor = hiredInstructor(gym, in.getInt());
+                    } else {
+                        Instructor logged = readInstructor(in, gym);
+                        instructor = sessionInstructors.computeIfAbsent(logged.getId(), id -> logged);
+                    }
+                    secretary(gym).restoreSession(sessionType, dateTime, forum, instructor);
+                    sessionInstructors.putIfAbsent(instructor.getId(), instructor);
+                    break;
+                case CLIENT_REGISTERED_TO_SESSION:
+                    Client client = client(gym, in.getInt());
+                    Session session = session(gym, in.getInt());
+                    // Validation already passed when the booking was made; only its effects are replayed
+                    if (!secretary(gym).completeRegistration(client, session)) {
+                        throw new StaleRecordException("Logged session registration no longer applies");
+                    }
+                    break;
+                case REGISTRATION_CANCELLED:
+                    Client cancelling = client(gym, in.getInt());
+                    Session cancelled = session(gym, in.getInt());
+                    // Clients promoted from the waitlist were logged as registrations of their own
+                    if (!secretary(gym).completeCancellation(cancelling, cancelled)) {
+                        throw new StaleRecordException("Logged cancellation no longer applies");
+                    }
+                    break;
+                case SALARIES_PAID:
+                    secretary(gym).paySalaries();
+                    break;
+                case PERIOD_SALARIES_PAID:
+                    int month = in.getInt();
+                    secretary(gym).paySalaries(YearMonth.of(month / 12, month % 12 + 1));
+                    break;
+                default:
+                    throw new IOException("Unknown operation log record type: " + type);
+            }
+        } catch (InvalidAgeException | DuplicateClientException | ClientNotRegisteredException
+                 | InstructorNotQualifiedException e) {
+            throw new StaleRecordException("Logged operation no longer applies: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a person. A person the gym already knows is reused, so a client who is also an instructor
+     * keeps a single bank account.
+     *
+     * @param in  the record contents
+     * @param gym the gym
+     * @return the person
+     */
+    private static Person readPerson(ByteBuffer in, Gym gym) {
+        int id = in.getInt();
+        byte[] name = new byte[in.getInt()];
+        in.get(name);
+        Gender gender = GENDERS[in.get()];
+        LocalDate dateOfBirth = LocalDate.ofEpochDay(in.getLong());
+        long balanceCents = in.getLong();
+        Person known = gym.findPerson(id);
+        if (known != null) {
+            return known;
+        }
+        return Person.restore(id, new String(name, StandardCharsets.UTF_8), gender, dateOfBirth, balanceCents);
+    }
+
+    /**
+     * Returns the current secretary of a gym being recovered.
+     *
+     * @param gym the gym
+     * @return the secretary
+     * @throws StaleRecordException if the gym has no secretary
+     */
+    private static Secretary secretary(Gym gym) throws StaleRecordException {
+        if (gym.getSecretary() == null) {
+            throw new StaleRecordException("Logged operation needs a secretary, but the gym has none");
+        }
+        return gym.getSecretary();
+    }
+
+    /**
+     * Returns a registered client of a gym being recovered.
+     *
+     * @param gym the gym
+     * @param id  the ID of the client
+     * @return the client
+     * @throws StaleRecordException if no client has that ID
+     */
+    private static Client client(Gym gym, int id) throws StaleRecordException {
+        Client client = gym.getClient(id);
+        if (client == null) {
+            throw new StaleRecordException("Logged operation refers to an unknown client: " + id);
+        }
+        return client;
+    }
+
+    /**
+     * Decodes an instructor written by {@link #writeInstructor}, without hiring them.
+     *
+     * @param in  the record contents
+     * @param gym the gym
+     * @return the instructor
+     */
+    private static Instructor readInstructor(ByteBuffer in, Gym gym) {
+        Person person = readPerson(in, gym);
+        double salaryPerHour = in.getDouble();
+        int certifiedCount = in.get();
+        List<SessionType> certified = new ArrayList<>(certifiedCount);
+        for (int i = 0; i < certifiedCount; i++) {
+            certified.add(SESSION_TYPES[in.get()]);
+        }
+        return new Instructor(person, salaryPerHour, certified);
+    }
+
+    /**
+     * Returns a hired instructor of a gym being recovered.
+     *
+     * @param gym the gym
+     * @param id  the person ID of the instructor
+     * @return the instructor
+     * @throws StaleRecordException if the gym hired no instructor with that ID
+     */
+    private static Instructor hiredInstructor(Gym gym, int id) throws StaleRecordException {
+        for (Instructor instructor : gym.getInstructors()) {
+            if (instructor.getId() == id) {
+                return instructor;
+            }
+        }
+        throw new StaleRecordException("Logged operation refers to an unknown instructor: " + id);
+    }
+
+    /**
+     * Returns an instructor of a gym being recovered, by position, as written before instructors were logged by ID.
+     *
+     * @param gym   the gym
+     * @param index the position of the instructor in the order they were hired
+     * @return the instructor
+     * @throws StaleRecordException if the gym has no instructor at that position
+     */
+    private static Instructor instructor(Gym gym, int index) throws StaleRecordException {
+        List<Instructor> instructors = gym.getInstructors();
+        if (index < 0 || index >= instructors.size()) {
+            throw new StaleRecordException("Logged operation refers to an unknown instructor: " + index);
+        }
+        return instructors.get(index);
+    }
+
+    /**
+     * Returns a session of a gym being recovered.
+     *
+     * @param gym the gym
+     * @param id  the session ID
+     * @return the session
+     * @throws StaleRecordException if the gym has no session with that ID
+     */
+    private static Session session(Gym gym, int id) throws StaleRecordException {
+        if (id < 0 || id >= gym.getSessionCount()) {
+            throw new StaleRecordException("Logged operation refers to an unknown session: " + id);
+        }
+        return gym.getSession(id);
+    }
+
+    /**
+     * Thrown during recovery when a logged operation no longer applies to the gym.
+     * The record is skipped and recovery goes on with the next one.
+     */
+    private static final class StaleRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates the exception.
+         *
+         * @param message the reason the operation doesn't apply
+         */
+        StaleRecordException(String message) {
+            super(message);
+        }
+
+        /**
+         * Creates the exception.
+         *
+         * @param message the reason the operation doesn't apply
+         * @param cause   the exception the operation threw
+         */
+        StaleRecordException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
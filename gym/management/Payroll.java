@@ -0,0 +1,60 @@
+package gym.management;
+
+import gym.management.Sessions.Session;
+
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps running totals of the hours each instructor has taught.
+ * Every session counts as one teaching hour, both in the instructor's overall total
+ * and in the total for the month the session takes place in.
+ * All methods are synchronized, since the gym records sessions while other threads read the totals.
+ */
+public class Payroll {
+    private final Map<Instructor, Integer> totalHours;
+    private final Map<Instructor, Map<YearMonth, Integer>> monthlyHours;
+
+    /**
+     * Creates an empty payroll.
+     */
+    public Payroll() {
+        totalHours = new HashMap<>();
+        monthlyHours = new HashMap<>();
+    }
+
+    /**
+     * Records the teaching hour of a newly scheduled session.
+     *
+     * @param session the session that was added to the gym
+     */
+    public synchronized void recordSession(Session session) {
+        Instructor instructor = session.getInstructor();
+        totalHours.merge(instructor, 1, Integer::sum);
+        monthlyHours.computeIfAbsent(instructor, i -> new HashMap<>())
+                .merge(YearMonth.from(session.getDateTime()), 1, Integer::sum);
+    }
+
+    /**
+     * Returns the total number of hours an instructor has been scheduled to teach.
+     *
+     * @param instructor the instructor to look up
+     * @return the total number of hours
+     */
+    public synchronized int getHours(Instructor instructor) {
+        return totalHours.getOrDefault(instructor, 0);
+    }
+
+    /**
+     * Returns the number of hours an instructor has been scheduled to teach in a given month.
+     *
+     * @param instructor the instructor to look up
+     * @param period     the month to look up
+     * @return the number of hours in that month
+     */
+    public synchronized int getHours(Instructor instructor, YearMonth period) {
+        Map<YearMonth, Integer> hours = monthlyHours.get(instructor);
+        return hours == null ? 0 : hours.getOrDefault(period, 0);
+    }
+}
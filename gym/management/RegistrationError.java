@@ -0,0 +1,61 @@
+package gym.management;
+
+/**
+ * The reasons a client can fail to register for a session.
+ */
+public enum RegistrationError {
+    /**
+     * The session has already taken place.
+     */
+    SessionNotInFuture("Session is not in the future"),
+
+    /**
+     * The client is too young for a seniors session.
+     */
+    AgeRequirement("Client doesn't meet the age requirements for this session (Seniors)"),
+
+    /**
+     * The client's gender doesn't match the session's forum.
+     */
+    GenderMismatch("Client's gender doesn't match the session's gender requirements"),
+
+    /**
+     * The client is not eligible for the session for any other reason.
+     */
+    NotEligible("Client is not eligible for this session"),
+
+    /**
+     * The session is full.
+     */
+    NoAvailableSpots("No available spots for session"),
+
+    /**
+     * The client can't pay for the session.
+     */
+    InsufficientBalance("Client doesn't have enough balance");
+
+    private final String message;
+
+    RegistrationError(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Returns the bit representing this error in a mask of errors.
+     * Masks list errors in declaration order when read from the lowest bit up.
+     *
+     * @return the bit of this error
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Returns the message describing this error.
+     *
+     * @return the error message
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -1,21 +1,35 @@
 package gym.management;
 
 import gym.Exception.*;
+import gym.customers.BankAccount;
 import gym.customers.Client;
 import gym.customers.Person;
-import gym.customers.Gender;
 import gym.management.Sessions.*;
+import gym.time.DateCodec;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents the secretary of a gym, responsible for managing clients,
  * instructors, sessions, and sending notifications through the Gym.
  */
 public class Secretary extends Person {
+    private static final RegistrationError[] REGISTRATION_ERRORS = RegistrationError.values();
+    private static final int[] FORUM_ERRORS = forumErrors(); // Why a client can't join each forum, by ordinal
+
+    private static final String UNDERAGE_CLIENT = "Error: Client must be at least 18 years old to register";
+    private static final String DUPLICATE_CLIENT = "Error: The client is already registered";
+    private static final String CLIENT_NOT_REGISTERED = "Error: The client is not registered with the gym and cannot enroll in lessons";
+    private static final String DUPLICATE_PARTICIPANT = "Error: The client is already registered for this lesson";
+    private static final String DUPLICATE_WAITLISTED = "Error: The client is already on the waitlist for this lesson";
+    private static final String NOT_PARTICIPANT = "Error: The client is not registered for this lesson";
+
     private double salary;
     private Gym gym; // The gym now is responsible for sending messages, not the secretary directly
 
@@ -44,6 +58,15 @@ public class Secretary extends Person {
         return new Secretary(person, salary, gym);
     }
 
+    /**
+     * Gets the monthly salary of the secretary.
+     *
+     * @return the salary per month
+     */
+    public double getSalary() {
+        return salary;
+    }
+
     /**
      * Deactivates the secretary by removing access to the gym.
      */
@@ -60,16 +83,75 @@ public class Secretary extends Person {
      * @throws InvalidAgeException      if the client is under 18 years old
      */
     public Client registerClient(Person person) throws DuplicateClientException, InvalidAgeException {
-        if (person.getAge() < 18) {
-            throw new InvalidAgeException("Error: Client must be at least 18 years old to register");
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        boolean success = false;
+        try {
+            if (!person.isAdult(gym.getClock().todayEpochDay())) {
+                throw new InvalidAgeException(UNDERAGE_CLIENT);
+            }
+            Client client = new Client(person);
+            OperationLog log = beginLogged();
+            long sequence = 0;
+            try {
+                if (!gym.addClient(client)) {
+                    throw new DuplicateClientException(DUPLICATE_CLIENT);
+                }
+                gym.recordAction(ActionEvent.clientRegistered(client.getName()));
+                if (log != null) {
+                    sequence = log.clientRegistered(client);
+                }
+            } finally {
+                endLogged(log);
+            }
+            awaitLogged(log, sequence);
+            success = true;
+            return client;
+        } finally {
+            metrics.record(SecretaryMetrics.Operation.RegisterClient, start, success);
         }
-        Client client = new Client(person);
-        if (gym.isClientRegistered(client)) {
-            throw new DuplicateClientException("Error: The client is already registered");
+    }
+
+    /**
+     * Registers a batch of new clients in the gym.
+     * Each person is validated once, valid ones are registered, and a single entry
+     * summarizing the batch is added to the action history.
+     *
+     * @param persons the people to register as clients
+     * @return the outcome for each person, in iteration order; a success holds the new Client
+     */
+    public BatchResult<Client> registerClients(Collection<? extends Person> persons) {
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        BatchResult<Client> result = new BatchResult<>(persons.size());
+        List<String> names = new ArrayList<>(persons.size());
+        long today = gym.getClock().todayEpochDay();
+        OperationLog log = beginLogged();
+        long lastSequence = 0;
+        try {
+            for (Person person : persons) {
+                if (!person.isAdult(today)) {
+                    result.addFailure(UNDERAGE_CLIENT);
+                    continue;
+                }
+                Client client = new Client(person);
+                if (!gym.addClient(client)) {
+                    result.addFailure(DUPLICATE_CLIENT);
+                    continue;
+                }
+                names.add(client.getName());
+                result.addSuccess(client);
+                if (log != null) {
+                    lastSequence = log.clientRegistered(client);
+                }
+            }
+            gym.recordAction(ActionEvent.clientsRegistered(names, persons.size()));
+        } finally {
+            endLogged(log);
         }
-        gym.addClient(client);
-        gym.addAction("Registered new client: " + client.getName());
-        return client;
+        awaitLogged(log, lastSequence);
+        metrics.record(SecretaryMetrics.Operation.RegisterClients, start, result.getSuccessCount() == result.size());
+        return result;
     }
 
     /**
@@ -79,11 +161,28 @@ public class Secretary extends Person {
      * @throws ClientNotRegisteredException if the client is not registered
      */
     public void unregisterClient(Client client) throws ClientNotRegisteredException {
-        if (!gym.isClientRegistered(client)) {
-            throw new ClientNotRegisteredException("Error: Registration is required before attempting to unregister");
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        boolean success = false;
+        try {
+            OperationLog log = beginLogged();
+            long sequence = 0;
+            try {
+                if (!gym.removeClient(client)) {
+                    throw new ClientNotRegisteredException("Error: Registration is required before attempting to unregister");
+                }
+                gym.recordAction(ActionEvent.clientUnregistered(client.getName()));
+                if (log != null) {
+                    sequence = log.clientUnregistered(client);
+                }
+            } finally {
+                endLogged(log);
+            }
+            awaitLogged(log, sequence);
+            success = true;
+        } finally {
+            metrics.record(SecretaryMetrics.Operation.UnregisterClient, start, success);
         }
-        gym.removeClient(client);
-        gym.addAction("Unregistered client: " + client.getName());
     }
 
     /**
@@ -95,9 +194,22 @@ public class Secretary extends Person {
      * @return the newly hired Instructor instance
      */
     public Instructor hireInstructor(Person person, double salaryPerHour, List<SessionType> certifiedSessions) {
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
         Instructor instructor = new Instructor(person, salaryPerHour, certifiedSessions);
-        gym.addInstructor(instructor);
-        gym.addAction("Hired new instructor: " + instructor.getName() + " with salary per hour: " + (int) salaryPerHour);
+        OperationLog log = beginLogged();
+        long sequence = 0;
+        try {
+            gym.addInstructor(instructor);
+            gym.recordAction(ActionEvent.instructorHired(instructor.getName(), (int) salaryPerHour));
+            if (log != null) {
+                sequence = log.instructorHired(instructor);
+            }
+        } finally {
+            endLogged(log);
+        }
+        awaitLogged(log, sequence);
+        metrics.record(SecretaryMetrics.Operation.HireInstructor, start, true);
         return instructor;
     }
 
@@ -110,21 +222,63 @@ public class Secretary extends Person {
      * @param instructor  the instructor leading the session
      * @return the newly created Session instance
      * @throws InstructorNotQualifiedException if the instructor is not certified for the session type
+     * @throws InstructorUnavailableException  if the instructor is teaching another session at that time
+     */
+    public Session addSession(SessionType type, String dateTimeStr, ForumType forum, Instructor instructor)
+            throws InstructorNotQualifiedException, InstructorUnavailableException {
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        boolean success = false;
+        try {
+            if (!instructor.isCertifiedFor(type)) {
+                throw new InstructorNotQualifiedException("Error: Instructor is not qualified to conduct this session type.");
+            }
+            Session session = SessionFactory.createSession(type, dateTimeStr, forum, instructor);
+            OperationLog log = beginLogged();
+            long sequence = 0;
+            try {
+                if (!gym.addSessionIfInstructorFree(session)) {
+                    throw new InstructorUnavailableException("Error: Instructor is already teaching another session at this time.");
+                }
+                gym.recordAction(ActionEvent.sessionCreated(session));
+                if (log != null) {
+                    sequence = log.sessionAdded(session);
+                }
+            } finally {
+                endLogged(log);
+            }
+            awaitLogged(log, sequence);
+            success = true;
+            return session;
+        } finally {
+            metrics.record(SecretaryMetrics.Operation.AddSession, start, success);
+        }
+    }
+
+    /**
+     * Restores a logged session. Unlike {@link #addSession}, the instructor's other sessions aren't checked:
+     * sessions logged before overlaps were rejected must still be restored.
+     * Used by {@link OperationLog} to replay logged sessions.
+     *
+     * @param type        the type of session
+     * @param dateTimeStr the date and time of the session in "dd-MM-yyyy HH:mm" format
+     * @param forum       the forum type of the session
+     * @param instructor  the instructor leading the session
+     * @throws InstructorNotQualifiedException if the instructor is not certified for the session type
      */
-    public Session addSession(SessionType type, String dateTimeStr, ForumType forum, Instructor instructor) throws InstructorNotQualifiedException {
+    void restoreSession(SessionType type, String dateTimeStr, ForumType forum, Instructor instructor)
+            throws InstructorNotQualifiedException {
         if (!instructor.isCertifiedFor(type)) {
             throw new InstructorNotQualifiedException("Error: Instructor is not qualified to conduct this session type.");
         }
         Session session = SessionFactory.createSession(type, dateTimeStr, forum, instructor);
         gym.addSession(session);
-        gym.addAction("Created new session: " + type + " on "
-                + session.getDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"))
-                + " with instructor: " + instructor.getName());
-        return session;
+        gym.recordAction(ActionEvent.sessionCreated(session));
     }
 
     /**
-     * Registers a client to a session/lesson.
+     * Registers a client to a session/lesson. A session whose waitlist isn't empty counts as full.
+     * Safe to call from several threads at once; bookings for different sessions don't block each other.
      *
      * @param client  the client to register
      * @param session the session to register the client for
@@ -132,69 +286,450 @@ public class Secretary extends Person {
      * @throws DuplicateClientException     if the client is already registered for the session
      */
     public void registerClientToLesson(Client client, Session session) throws ClientNotRegisteredException, DuplicateClientException {
-        if (!gym.isClientRegistered(client)) {
-            throw new ClientNotRegisteredException("Error: The client is not registered with the gym and cannot enroll in lessons");
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        boolean success = false;
+        try {
+            if (!gym.isClientRegistered(client)) {
+                throw new ClientNotRegisteredException(CLIENT_NOT_REGISTERED);
+            }
+            if (session.isClientRegistered(client)) {
+                throw new DuplicateClientException(DUPLICATE_PARTICIPANT);
+            }
+
+            int errors = collectErrors(client, session, session.isInFuture());
+            if (session.isFull() || session.getWaitlistSize() > 0) { // Free spots go to waiting clients first
+                errors |= RegistrationError.NoAvailableSpots.mask();
+            }
+            if (errors != 0) {
+                recordRegistrationErrors(errors);
+                return;
+            }
+
+            OperationLog log = beginLogged();
+            long sequence = 0;
+            try {
+                success = completeRegistration(client, session);
+                if (success && log != null) {
+                    sequence = log.clientRegisteredToSession(client, session);
+                }
+            } finally {
+                endLogged(log);
+            }
+            awaitLogged(log, sequence);
+        } finally {
+            metrics.record(SecretaryMetrics.Operation.RegisterClientToLesson, start, success);
+        }
+    }
+
+    /**
+     * Registers a batch of clients to a session/lesson.
+     * All clients are validated in a single pass, the seats for the valid ones are reserved at once,
+     * the payments are added to the gym's balance together, and a single entry summarizing the batch
+     * is added to the action history. A session whose waitlist isn't empty counts as full.
+     *
+     * @param clients the clients to register
+     * @param session the session to register the clients for
+     * @return the outcome for each client, in iteration order; a success holds the client
+     */
+    public BatchResult<Client> registerClientsToLesson(Collection<? extends Client> clients, Session session) {
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        BatchResult<Client> result = new BatchResult<>(clients.size());
+        List<Client> accepted = new ArrayList<>(clients.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(clients.size());
+        Set<Client> seen = new HashSet<>();
+        boolean inFuture = session.isInFuture();
+        int index = 0;
+        for (Client client : clients) {
+            if (!gym.isClientRegistered(client)) {
+                result.addFailure(CLIENT_NOT_REGISTERED);
+            } else if (!seen.add(client) || session.isClientRegistered(client)) {
+                result.addFailure(DUPLICATE_PARTICIPANT);
+            } else {
+                int errors = collectErrors(client, session, inFuture);
+                if (errors != 0) {
+                    metrics.recordRegistrationErrors(errors);
+                    result.addFailure(REGISTRATION_ERRORS[Integer.numberOfTrailingZeros(errors)].getMessage());
+                } else {
+                    result.addSuccess(client);
+                    accepted.add(client);
+                    acceptedIndexes.add(index);
+                }
+            }
+            index++;
         }
-        if (session.isClientRegistered(client)) {
-            throw new DuplicateClientException("Error: The client is already registered for this lesson");
+
+        long priceCents = BankAccount.toCents(session.getPrice());
+        long collectedCents = 0;
+        OperationLog log = beginLogged();
+        long lastSequence = 0;
+        try {
+            int seats = session.getWaitlistSize() > 0 ? 0 // Free spots go to waiting clients first
+                    : session.reserveSeats(accepted.size()); // Seats reserved and not yet filled
+            for (int i = 0; i < accepted.size(); i++) {
+                Client client = accepted.get(i);
+                int clientIndex = acceptedIndexes.get(i);
+                if (seats == 0) {
+                    metrics.recordRegistrationErrors(RegistrationError.NoAvailableSpots.mask());
+                    result.fail(clientIndex, RegistrationError.NoAvailableSpots.getMessage());
+                } else if (!client.tryReduceBalance(session.getPrice())) {
+                    metrics.recordRegistrationErrors(RegistrationError.InsufficientBalance.mask());
+                    result.fail(clientIndex, RegistrationError.InsufficientBalance.getMessage());
+                } else if (!session.registerClient(client)) {
+                    client.addBalance(session.getPrice());
+                    result.fail(clientIndex, DUPLICATE_PARTICIPANT);
+                } else {
+                    seats--;
+                    collectedCents += priceCents;
+                    if (log != null) {
+                        lastSequence = log.clientRegisteredToSession(client, session);
+                    }
+                }
+            }
+            session.releaseSeats(seats); // Seats left over by clients who failed to pay or registered meanwhile
+            gym.addBalanceCents(collectedCents);
+            gym.recordAction(ActionEvent.clientsRegisteredToSession(session, result.getSuccessCount(), clients.size(),
+                    (int) session.getPrice()));
+        } finally {
+            endLogged(log);
         }
+        awaitLogged(log, lastSequence);
+        metrics.record(SecretaryMetrics.Operation.RegisterClientsToLesson, start,
+                result.getSuccessCount() == result.size());
+        return result;
+    }
 
-        List<String> errorMessages = collectErrorMessages(client, session);
-        if (!errorMessages.isEmpty()) {
-            for (String error : errorMessages) {
-                gym.addAction("Failed registration: " + error);
+    /**
+     * Adds a client to the waitlist of a session. Waiting clients are registered in the order they joined
+     * as soon as spots free up, so if the session still has a free spot the client may be registered right away.
+     * The balance is only checked when the client's turn comes. While anyone is waiting, direct bookings
+     * for the session are turned away. Waitlists are kept in memory only: they are neither logged nor part
+     * of a snapshot, so a recovered gym starts with empty waitlists.
+     * Safe to call from several threads at once.
+     *
+     * @param client  the client to add
+     * @param session the session to wait for
+     * @return true if the client joined the waitlist, false if the session has started or the client isn't eligible
+     * @throws ClientNotRegisteredException if the client is not registered in the gym
+     * @throws DuplicateClientException     if the client is already registered for the session or on its waitlist
+     */
+    public boolean addToWaitlist(Client client, Session session) throws ClientNotRegisteredException, DuplicateClientException {
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        boolean success = false;
+        try {
+            if (!gym.isClientRegistered(client)) {
+                throw new ClientNotRegisteredException(CLIENT_NOT_REGISTERED);
             }
-            return;
+            if (session.isClientRegistered(client)) {
+                throw new DuplicateClientException(DUPLICATE_PARTICIPANT);
+            }
+            int errors = collectErrors(client, session, session.isInFuture())
+                    & ~RegistrationError.InsufficientBalance.mask();
+            if (errors != 0) {
+                recordRegistrationErrors(errors);
+                return false;
+            }
+            if (!session.addToWaitlist(client)) {
+                throw new DuplicateClientException(DUPLICATE_WAITLISTED);
+            }
+            gym.recordAction(ActionEvent.clientWaitlisted(client.getName(), session));
+            promoteFromWaitlist(session); // A spot may have freed up before the client was queued
+            success = true;
+            return true;
+        } finally {
+            metrics.record(SecretaryMetrics.Operation.AddToWaitlist, start, success);
+        }
+    }
+
+    /**
+     * Cancels a client's registration to a session and refunds the price to the client's bank account.
+     * The freed spot goes to the next client on the session's waitlist who is still eligible and can pay,
+     * in the same operation, so no other booking can take it in between.
+     * A client who is only on the waitlist is taken off it.
+     * Safe to call from several threads at once.
+     *
+     * @param client  the client cancelling
+     * @param session the session
+     * @return true if the registration was cancelled or the client left the waitlist,
+     * false if the session has already started, in which case nothing is refunded
+     * @throws ClientNotRegisteredException if the client is neither registered for the session nor on its waitlist
+     */
+    public boolean cancelRegistration(Client client, Session session) throws ClientNotRegisteredException {
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        boolean success = false;
+        try {
+            if (session.removeFromWaitlist(client)) {
+                success = true;
+                return true;
+            }
+            if (!session.isInFuture()) {
+                return false;
+            }
+            List<Client> promotedClients = new ArrayList<>();
+            OperationLog log = beginLogged();
+            long lastSequence = 0;
+            try {
+                if (!session.vacateSeat(client)) { // The seat stays reserved for the waitlist
+                    throw new ClientNotRegisteredException(NOT_PARTICIPANT);
+                }
+                refundCancellation(client, session);
+                if (log != null) {
+                    lastSequence = log.registrationCancelled(client, session);
+                }
+                lastSequence = Math.max(lastSequence, fillFromWaitlist(session, true, log, promotedClients));
+            } finally {
+                endLogged(log);
+            }
+            awaitLogged(log, lastSequence);
+            notifyPromoted(session, promotedClients);
+            success = true;
+            return true;
+        } finally {
+            metrics.record(SecretaryMetrics.Operation.CancelRegistration, start, success);
         }
+    }
 
-        completeRegistration(client, session);
+    /**
+     * Removes a client from a session and refunds them.
+     * Also used by {@link OperationLog} to replay logged cancellations.
+     *
+     * @param client  the client cancelling
+     * @param session the session
+     * @return true if the client was removed, false if the client was not registered for the session
+     */
+    boolean completeCancellation(Client client, Session session) {
+        if (!session.unregisterClient(client)) {
+            return false;
+        }
+        refundCancellation(client, session);
+        return true;
     }
 
     /**
-     * Collects error messages if a client cannot be registered to a session.
+     * Refunds a client who cancelled their registration and records the cancellation.
      *
-     * @param client  the client to check
-     * @param session the session to check
-     * @return a list of error messages
+     * @param client  the client who cancelled
+     * @param session the session
      */
-    private List<String> collectErrorMessages(Client client, Session session) {
-        List<String> errors = new ArrayList<>();
+    private void refundCancellation(Client client, Session session) {
+        client.addBalance(session.getPrice());
+        gym.deductBalance(session.getPrice());
+        gym.recordAction(ActionEvent.registrationCancelled(client.getName(), session, (int) session.getPrice()));
+    }
+
+    /**
+     * Fills the free spots of a session from its waitlist in one logged operation and notifies each
+     * promoted client once the promotions are durable.
+     *
+     * @param session the session
+     */
+    private void promoteFromWaitlist(Session session) {
         if (!session.isInFuture()) {
-            errors.add("Session is not in the future");
+            return;
         }
-        if (!session.isClientEligible(client)) {
-            if (session.getForum() == ForumType.Seniors && client.getAge() < 65) {
-                errors.add("Client doesn't meet the age requirements for this session (Seniors)");
-            } else if ((session.getForum() == ForumType.Male && client.getGender() != Gender.Male)
-                    || (session.getForum() == ForumType.Female && client.getGender() != Gender.Female)) {
-                errors.add("Client's gender doesn't match the session's gender requirements");
-            } else {
-                errors.add("Client is not eligible for this session");
+        List<Client> promotedClients = new ArrayList<>();
+        OperationLog log = beginLogged();
+        long lastSequence = 0;
+        try {
+            lastSequence = fillFromWaitlist(session, false, log, promotedClients);
+        } finally {
+            endLogged(log);
+        }
+        awaitLogged(log, lastSequence);
+        notifyPromoted(session, promotedClients);
+    }
+
+    /**
+     * Registers clients from a session's waitlist while it has free spots, as part of a logged operation.
+     * A seat is reserved before a client is taken off the waitlist, so a client is never dropped for lack
+     * of a spot. Clients who have left the gym, are no longer eligible, or can't pay are dropped instead.
+     *
+     * @param session         the session
+     * @param seatHeld        whether the caller already holds a reserved seat to hand over, which is
+     *                        given back if nobody on the waitlist can take it
+     * @param log             the gym's operation log, or null if operations aren't logged
+     * @param promotedClients receives the clients who were registered
+     * @return the sequence number of the last record logged, or 0 if none was
+     */
+    private long fillFromWaitlist(Session session, boolean seatHeld, OperationLog log, List<Client> promotedClients) {
+        long lastSequence = 0;
+        boolean reserved = seatHeld;
+        while (reserved || (session.getWaitlistSize() > 0 && session.reserveSeat())) {
+            reserved = false;
+            Client promoted = null;
+            Client candidate;
+            while (promoted == null && (candidate = session.pollWaitlist()) != null) {
+                if (!gym.isClientRegistered(candidate) || !session.isClientEligible(candidate)) {
+                    continue;
+                }
+                if (!candidate.tryReduceBalance(session.getPrice())) {
+                    recordRegistrationErrors(RegistrationError.InsufficientBalance.mask());
+                } else if (!session.registerClient(candidate)) {
+                    candidate.addBalance(session.getPrice()); // Registered directly while waiting
+                } else {
+                    promoted = candidate;
+                }
+            }
+            if (promoted == null) {
+                session.releaseSeat();
+                break;
+            }
+            gym.addBalance(session.getPrice());
+            gym.recordAction(ActionEvent.waitlistPromoted(promoted.getName(), session, (int) session.getPrice()));
+            promotedClients.add(promoted);
+            if (log != null) {
+                lastSequence = log.clientRegisteredToSession(promoted, session);
             }
         }
-        if (session.isFull()) {
-            errors.add("No available spots for session");
+        return lastSequence;
+    }
+
+    /**
+     * Tells clients promoted from a session's waitlist that they are now registered.
+     *
+     * @param session         the session
+     * @param promotedClients the promoted clients
+     */
+    private void notifyPromoted(Session session, List<Client> promotedClients) {
+        for (Client promoted : promotedClients) {
+            gym.getMetrics().recordNotification(gym.notifyClient(promoted,
+                    "A spot opened up and you are now registered for session: " + session.getType() + " on "
+                            + DateCodec.formatIsoDateTime(session.getEpochMinute())));
+        }
+    }
+
+    /**
+     * Starts an operation that is written to the gym's operation log, if the gym has one.
+     * The operation must apply its change and append its record before {@link #endLogged}.
+     *
+     * @return the log, or null if the gym's operations aren't logged
+     * @throws java.io.UncheckedIOException if the log has failed
+     */
+    private OperationLog beginLogged() {
+        OperationLog log = gym.getOperationLog();
+        if (log != null) {
+            log.beginOperation();
+        }
+        return log;
+    }
+
+    /**
+     * Ends an operation started with {@link #beginLogged}.
+     *
+     * @param log the log returned by {@link #beginLogged}, or null
+     */
+    private static void endLogged(OperationLog log) {
+        if (log != null) {
+            log.endOperation();
+        }
+    }
+
+    /**
+     * Waits until the last record of an operation is on disk.
+     *
+     * @param log      the log returned by {@link #beginLogged}, or null
+     * @param sequence the sequence number of the operation's last record, or 0 if it appended none
+     * @throws java.io.UncheckedIOException if writing the log fails
+     */
+    private static void awaitLogged(OperationLog log, long sequence) {
+        if (log != null && sequence != 0) {
+            log.awaitSynced(sequence);
+        }
+    }
+
+    /**
+     * Records each reason a registration failed in the action history and the metrics.
+     *
+     * @param errors a mask of {@link RegistrationError} bits
+     */
+    private void recordRegistrationErrors(int errors) {
+        for (RegistrationError error : REGISTRATION_ERRORS) {
+            if ((errors & error.mask()) != 0) {
+                gym.recordAction(ActionEvent.registrationFailed(error));
+            }
+        }
+        gym.getMetrics().recordRegistrationErrors(errors);
+    }
+
+    /**
+     * Maps each forum to the registration error reported to clients who aren't eligible for it.
+     *
+     * @return the {@link RegistrationError} bit of each forum, indexed by ordinal
+     */
+    private static int[] forumErrors() {
+        int[] errors = new int[ForumType.values().length];
+        for (ForumType forum : ForumType.values()) {
+            switch (forum) {
+                case Male:
+                case Female:
+                    errors[forum.ordinal()] = RegistrationError.GenderMismatch.mask();
+                    break;
+                case Seniors:
+                    errors[forum.ordinal()] = RegistrationError.AgeRequirement.mask();
+                    break;
+                default:
+                    errors[forum.ordinal()] = RegistrationError.NotEligible.mask();
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Collects the reasons a client cannot be registered to a session, other than the session being full.
+     *
+     * @param client   the client to check
+     * @param session  the session to check
+     * @param inFuture whether the session is in the future
+     * @return a mask of {@link RegistrationError} bits, or 0 if the client can register
+     */
+    private int collectErrors(Client client, Session session, boolean inFuture) {
+        int errors = 0;
+        if (!inFuture) {
+            errors |= RegistrationError.SessionNotInFuture.mask();
+        }
+        if (!session.isClientEligible(client)) {
+            errors |= FORUM_ERRORS[session.getForum().ordinal()];
         }
         if (client.getBalance() < session.getPrice()) {
-            errors.add("Client doesn't have enough balance");
+            errors |= RegistrationError.InsufficientBalance.mask();
         }
         return errors;
     }
 
     /**
      * Completes the registration of a client to a session.
+     * The seat and the payment are taken atomically, so concurrent bookings can neither
+     * overbook the session nor overdraw the client's balance.
+     * Also used by {@link OperationLog} to replay logged bookings, whose validation already passed.
      *
      * @param client  the client to register
      * @param session the session to register the client for
+     * @return true if the client was registered, false if the session filled up or the balance ran out meanwhile
+     * @throws DuplicateClientException if the client was registered for the session concurrently
      */
-    private void completeRegistration(Client client, Session session) {
-        session.registerClient(client);
-        client.reduceBalance(session.getPrice());
+    boolean completeRegistration(Client client, Session session) throws DuplicateClientException {
+        if (!session.reserveSeat()) {
+            gym.recordAction(ActionEvent.registrationFailed(RegistrationError.NoAvailableSpots));
+            gym.getMetrics().recordRegistrationErrors(RegistrationError.NoAvailableSpots.mask());
+            return false;
+        }
+        if (!client.tryReduceBalance(session.getPrice())) {
+            session.releaseSeat();
+            gym.recordAction(ActionEvent.registrationFailed(RegistrationError.InsufficientBalance));
+            gym.getMetrics().recordRegistrationErrors(RegistrationError.InsufficientBalance.mask());
+            return false;
+        }
+        if (!session.registerClient(client)) {
+            client.addBalance(session.getPrice());
+            session.releaseSeat();
+            throw new DuplicateClientException(DUPLICATE_PARTICIPANT);
+        }
         gym.addBalance(session.getPrice());
-        gym.addAction("Registered client: " + client.getName() + " to session: "
-                + session.getType() + " on "
-                + session.getDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"))
-                + " for price: " + (int) session.getPrice());
+        gym.recordAction(ActionEvent.clientRegisteredToSession(client.getName(), session, (int) session.getPrice()));
+        return true;
     }
 
     /**
@@ -204,11 +739,11 @@ public class Secretary extends Person {
      * @param message the notification message
      */
     public void notify(Session session, String message) {
-        gym.notifySessionParticipants(session, message);
-        gym.addAction("A message was sent to everyone registered for session "
-                + session.getType() + " on "
-                + session.getDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"))
-                + " : " + message);
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        metrics.recordNotification(gym.notifySessionParticipants(session, message));
+        gym.recordAction(ActionEvent.sessionMessage(session, message));
+        metrics.record(SecretaryMetrics.Operation.NotifySession, start, true);
     }
 
     /**
@@ -218,11 +753,17 @@ public class Secretary extends Person {
      * @param message the notification message
      */
     public void notify(String dateStr, String message) {
-        gym.notifySessionsOnDate(dateStr, message);
-        LocalDate date = LocalDate.parse(dateStr, DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-        gym.addAction("A message was sent to everyone registered for a session on "
-                + date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))
-                + " : " + message);
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        boolean success = false;
+        try {
+            LocalDate date = LocalDate.ofEpochDay(DateCodec.parseDate(dateStr));
+            metrics.recordNotification(gym.notifySessionsOnDate(date, message));
+            gym.recordAction(ActionEvent.dateMessage(date, message));
+            success = true;
+        } finally {
+            metrics.record(SecretaryMetrics.Operation.NotifyDate, start, success);
+        }
     }
 
     /**
@@ -231,23 +772,76 @@ public class Secretary extends Person {
      * @param message the notification message
      */
     public void notify(String message) {
-        gym.notifyAllClients(message);
-        gym.addAction("A message was sent to all gym clients: " + message);
+        SecretaryMetrics metrics = gym.getMetrics();
+        long start = metrics.startTimer();
+        metrics.recordNotification(gym.notifyAllClients(message));
+        gym.recordAction(ActionEvent.gymMessage(message));
+        metrics.record(SecretaryMetrics.Operation.NotifyAll, start, true);
     }
 
     /**
      * Pays the salaries of all instructors and the secretary.
      */
     public void paySalaries() {
-        for (Instructor instructor : gym.getInstructors()) {
-            double totalHours = gym.getSessions().stream().filter(s -> s.getInstructor().equals(instructor)).count();
-            double instructorSalary = totalHours * instructor.getSalaryPerHour();
-            instructor.addBalance(instructorSalary);
-            gym.deductBalance(instructorSalary);
+        long start = gym.getMetrics().startTimer();
+        Payroll payroll = gym.getPayroll();
+        OperationLog log = beginLogged();
+        long sequence = 0;
+        try {
+            for (Instructor instructor : gym.getInstructors()) {
+                payInstructor(instructor, payroll.getHours(instructor));
+            }
+            this.addBalance(this.salary);
+            gym.deductBalance(this.salary);
+            gym.recordAction(ActionEvent.salariesPaid());
+            if (log != null) {
+                sequence = log.salariesPaid(null);
+            }
+        } finally {
+            endLogged(log);
+        }
+        awaitLogged(log, sequence);
+        gym.getMetrics().recordPayroll(start);
+    }
+
+    /**
+     * Pays the salaries of all instructors for the sessions they taught in a given month,
+     * and the monthly salary of the secretary.
+     *
+     * @param period the month to pay for
+     */
+    public void paySalaries(YearMonth period) {
+        long start = gym.getMetrics().startTimer();
+        Payroll payroll = gym.getPayroll();
+        OperationLog log = beginLogged();
+        long sequence = 0;
+        try {
+            for (Instructor instructor : gym.getInstructors()) {
+                payInstructor(instructor, payroll.getHours(instructor, period));
+            }
+            this.addBalance(this.salary);
+            gym.deductBalance(this.salary);
+            gym.recordAction(ActionEvent.salariesPaid(period));
+            if (log != null) {
+                sequence = log.salariesPaid(period);
+            }
+        } finally {
+            endLogged(log);
         }
-        this.addBalance(this.salary);
-        gym.deductBalance(this.salary);
-        gym.addAction("Salaries have been paid to all employees");
+        awaitLogged(log, sequence);
+        gym.getMetrics().recordPayroll(start);
+    }
+
+    /**
+     * Pays an instructor for a number of teaching hours out of the gym's balance.
+     *
+     * @param instructor the instructor to pay
+     * @param hours      the number of hours to pay for
+     */
+    private void payInstructor(Instructor instructor, int hours) {
+        double instructorSalary = hours * instructor.getSalaryPerHour();
+        instructor.addBalance(instructorSalary);
+        gym.deductBalance(instructorSalary);
     }
 
     /**
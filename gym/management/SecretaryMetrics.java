@@ -0,0 +1,377 @@
+package gym.management;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers for the operations of a gym's secretary, exposed through JMX.
+ * <p>
+ * At the {@link Level#Counters} level, recording an operation only increments striped counters,
+ * which is cheap enough to leave on in production. The {@link Level#Timers} level also reads
+ * {@link System#nanoTime()} around every operation.
+ */
+public class SecretaryMetrics implements SecretaryMetricsMXBean {
+    /**
+     * How much the metrics record.
+     */
+    public enum Level {
+        /**
+         * Record nothing.
+         */
+        Off,
+
+        /**
+         * Count successes, failures and notification fan-out.
+         */
+        Counters,
+
+        /**
+         * Count, and also time every operation.
+         */
+        Timers
+    }
+
+    /**
+     * The secretary operations that are measured.
+     */
+    public enum Operation {
+        /**
+         * {@link Secretary#registerClient}
+         */
+        RegisterClient,
+
+        /**
+         * {@link Secretary#registerClients}
+         */
+        RegisterClients,
+
+        /**
+         * {@link Secretary#unregisterClient}
+         */
+        UnregisterClient,
+
+        /**
+         * {@link Secretary#hireInstructor}
+         */
+        HireInstructor,
+
+        /**
+         * {@link Secretary#addSession}
+         */
+        AddSession,
+
+        /**
+         * {@link Secretary#registerClientToLesson}
+         */
+        RegisterClientToLesson,
+
+        /**
+         * {@link Secretary#registerClientsToLesson}
+         */
+        RegisterClientsToLesson,
+
+        /**
+         * {@link Secretary#addToWaitlist}
+         */
+        AddToWaitlist,
+
+        /**
+         * {@link Secretary#cancelRegistration}
+         */
+        CancelRegistration,
+
+        /**
+         * {@link Secretary#notify(gym.management.Sessions.Session, String)}
+         */
+        NotifySession,
+
+        /**
+         * {@link Secretary#notify(String, String)}
+         */
+        NotifyDate,
+
+        /**
+         * {@link Secretary#notify(String)}
+         */
+        NotifyAll,
+
+        /**
+         * {@link Secretary#paySalaries()}
+         */
+        PaySalaries
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final RegistrationError[] REGISTRATION_ERRORS = RegistrationError.values();
+
+    private final Gym gym;
+    private volatile Level level;
+    private final LongAdder[] successes;
+    private final LongAdder[] failures;
+    private final LongAdder[] totalNanos;
+    private final LongAdder[] registrationFailures;
+    private final LongAdder notificationsSent;
+    private final LongAdder notificationRecipients;
+    private final LongAccumulator maxFanOut;
+    private volatile long lastPayrollNanos;
+    private ObjectName objectName;
+
+    /**
+     * Creates the metrics of a gym at the {@link Level#Counters} level.
+     *
+     * @param gym the gym whose operations are measured
+     */
+    SecretaryMetrics(Gym gym) {
+        this.gym = gym;
+        this.level = Level.Counters;
+        this.successes = newAdders(OPERATIONS.length);
+        this.failures = newAdders(OPERATIONS.length);
+        this.totalNanos = newAdders(OPERATIONS.length);
+        this.registrationFailures = newAdders(REGISTRATION_ERRORS.length);
+        this.notificationsSent = new LongAdder();
+        this.notificationRecipients = new LongAdder();
+        this.maxFanOut = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Creates an array of counters.
+     *
+     * @param count the number of counters
+     * @return the new counters
+     */
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Returns the start time of an operation to pass to {@link #record}.
+     *
+     * @return the current {@link System#nanoTime()} if timers are enabled, 0 otherwise
+     */
+    long startTimer() {
+        return level == Level.Timers ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the outcome of an operation.
+     *
+     * @param operation the operation
+     * @param start     the value returned by {@link #startTimer()} when the operation started
+     * @param success   whether the operation succeeded
+     * @return the duration of the operation in nanoseconds, or 0 if timers are disabled
+     */
+    long record(Operation operation, long start, boolean success) {
+        Level current = level;
+        if (current == Level.Off) {
+            return 0;
+        }
+        (success ? successes : failures)[operation.ordinal()].increment();
+        if (current == Level.Timers && start != 0) {
+            long elapsed = System.nanoTime() - start;
+            totalNanos[operation.ordinal()].add(elapsed);
+            return elapsed;
+        }
+        return 0;
+    }
+
+    /**
+     * Records the reasons a lesson registration failed.
+     *
+     * @param errors a mask of {@link RegistrationError} bits
+     */
+    void recordRegistrationErrors(int errors) {
+        if (level == Level.Off) {
+            return;
+        }
+        for (RegistrationError error : REGISTRATION_ERRORS) {
+            if ((errors & error.mask()) != 0) {
+                registrationFailures[error.ordinal()].increment();
+            }
+        }
+    }
+
+    /**
+     * Records a notification and the number of its recipients.
+     *
+     * @param recipients the number of recipients
+     */
+    void recordNotification(int recipients) {
+        if (level == Level.Off) {
+            return;
+        }
+        notificationsSent.increment();
+        notificationRecipients.add(recipients);
+        maxFanOut.accumulate(recipients);
+    }
+
+    /**
+     * Records the outcome and duration of a payroll run.
+     *
+     * @param start the value returned by {@link #startTimer()} when the run started
+     */
+    void recordPayroll(long start) {
+        long elapsed = record(Operation.PaySalaries, start, true);
+        if (elapsed != 0) {
+            lastPayrollNanos = elapsed;
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as {@code gym:type=SecretaryMetrics,name=<gym ID>}.
+     *
+     * @throws IllegalStateException if the registration fails
+     */
+    public synchronized void registerMBean() {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("gym:type=SecretaryMetrics,name=" + ObjectName.quote(gym.getId()));
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register the secretary metrics MBean", e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if they were registered.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Already unregistered
+        }
+        objectName = null;
+    }
+
+    @Override
+    public String getLevel() {
+        return level.name();
+    }
+
+    @Override
+    public void setLevel(String level) {
+        this.level = Level.valueOf(level);
+    }
+
+    /**
+     * Changes the metrics level.
+     *
+     * @param level the new level
+     */
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    @Override
+    public Map<String, Long> getSuccessCounts() {
+        return byOperation(successes);
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        return byOperation(failures);
+    }
+
+    @Override
+    public Map<String, Long> getTotalTimeNanos() {
+        return byOperation(totalNanos);
+    }
+
+    @Override
+    public Map<String, Long> getRegistrationFailures() {
+        return byName(REGISTRATION_ERRORS, registrationFailures, RegistrationError::name);
+    }
+
+    @Override
+    public long getNotificationsSent() {
+        return notificationsSent.sum();
+    }
+
+    @Override
+    public long getNotificationRecipients() {
+        return notificationRecipients.sum();
+    }
+
+    @Override
+    public long getMaxNotificationFanOut() {
+        return maxFanOut.get();
+    }
+
+    @Override
+    public long getLastPayrollNanos() {
+        return lastPayrollNanos;
+    }
+
+    @Override
+    public int getClientCount() {
+        return gym.getClientCount();
+    }
+
+    @Override
+    public int getSessionCount() {
+        return gym.getSessionCount();
+    }
+
+    @Override
+    public long getActionHistorySize() {
+        return gym.getActionJournal().size();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder[] adders : new LongAdder[][]{successes, failures, totalNanos, registrationFailures}) {
+            for (LongAdder adder : adders) {
+                adder.reset();
+            }
+        }
+        notificationsSent.reset();
+        notificationRecipients.reset();
+        maxFanOut.reset();
+        lastPayrollNanos = 0;
+    }
+
+    /**
+     * Returns the values of per-operation counters keyed by operation name.
+     *
+     * @param adders the counters, indexed by operation ordinal
+     * @return the counter values by operation
+     */
+    private static Map<String, Long> byOperation(LongAdder[] adders) {
+        return byName(OPERATIONS, adders, Operation::name);
+    }
+
+    /**
+     * Returns the values of counters keyed by the names of the constants they belong to.
+     *
+     * @param keys   the constants, in counter order
+     * @param adders the counters
+     * @param name   how to name a constant
+     * @param <E>    the type of the constants
+     * @return the counter values by name, in constant order
+     */
+    private static <E> Map<String, Long> byName(E[] keys, LongAdder[] adders, Function<E, String> name) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            values.put(name.apply(keys[i]), adders[i].sum());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,105 @@
+package gym.management;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the metrics of a gym's secretary operations.
+ */
+public interface SecretaryMetricsMXBean {
+
+    /**
+     * Returns the metrics level: Off, Counters (low overhead) or Timers.
+     *
+     * @return the metrics level
+     */
+    String getLevel();
+
+    /**
+     * Changes the metrics level.
+     *
+     * @param level Off, Counters or Timers
+     */
+    void setLevel(String level);
+
+    /**
+     * Returns the number of successful calls of each secretary operation.
+     *
+     * @return the success counts by operation
+     */
+    Map<String, Long> getSuccessCounts();
+
+    /**
+     * Returns the number of failed calls of each secretary operation.
+     *
+     * @return the failure counts by operation
+     */
+    Map<String, Long> getFailureCounts();
+
+    /**
+     * Returns the total time spent in each secretary operation while timers were enabled.
+     *
+     * @return the total time in nanoseconds by operation
+     */
+    Map<String, Long> getTotalTimeNanos();
+
+    /**
+     * Returns the number of failed lesson registrations of each kind.
+     *
+     * @return the failure counts by registration error
+     */
+    Map<String, Long> getRegistrationFailures();
+
+    /**
+     * Returns the number of notifications sent.
+     *
+     * @return the number of notifications
+     */
+    long getNotificationsSent();
+
+    /**
+     * Returns the total number of recipients of all notifications.
+     *
+     * @return the number of recipients
+     */
+    long getNotificationRecipients();
+
+    /**
+     * Returns the largest number of recipients of a single notification.
+     *
+     * @return the largest fan-out
+     */
+    long getMaxNotificationFanOut();
+
+    /**
+     * Returns the time the last payroll run took, if timers were enabled.
+     *
+     * @return the duration in nanoseconds
+     */
+    long getLastPayrollNanos();
+
+    /**
+     * Returns the number of registered clients.
+     *
+     * @return the number of clients
+     */
+    int getClientCount();
+
+    /**
+     * Returns the number of scheduled sessions.
+     *
+     * @return the number of sessions
+     */
+    int getSessionCount();
+
+    /**
+     * Returns the number of recorded actions.
+     *
+     * @return the size of the action history
+     */
+    long getActionHistorySize();
+
+    /**
+     * Resets all counters and timers.
+     */
+    void reset();
+}
@@ -22,5 +22,14 @@ public enum ForumType {
     /**
      * Sessions open to all participants, regardless of gender or age.
      */
-    All
+    All;
+
+    /**
+     * Returns the bit of this forum in a client's eligibility mask.
+     *
+     * @return the forum bit
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
 }
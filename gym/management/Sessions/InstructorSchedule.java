@@ -0,0 +1,100 @@
+package gym.management.Sessions;
+
+import gym.management.Instructor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Indexes each instructor's sessions as time intervals, from the start of a session to its end
+ * according to the duration of its type.
+ * No session lasts longer than the longest session type, so the only sessions that can overlap an interval
+ * are the ones starting less than that long before it, and checking an instructor's availability takes
+ * O(log n) plus the few sessions in that window.
+ * <p>
+ * Not thread-safe; the gym only uses it under its session lock.
+ */
+public class InstructorSchedule {
+    private static final int MAX_DURATION_MINUTES = maxDurationMinutes();
+
+    private final Map<Instructor, NavigableMap<Long, Session>> sessionsByInstructor; // Keyed by start and ID
+
+    /**
+     * Creates an empty schedule.
+     */
+    public InstructorSchedule() {
+        sessionsByInstructor = new HashMap<>();
+    }
+
+    /**
+     * Returns the duration of the longest session type.
+     *
+     * @return the duration in minutes
+     */
+    private static int maxDurationMinutes() {
+        int max = 0;
+        for (SessionType type : SessionType.values()) {
+            max = Math.max(max, type.getDurationMinutes());
+        }
+        return max;
+    }
+
+    /**
+     * Builds the key of a session: its start epoch minute, then its ID, so sessions restored from before
+     * overlaps were rejected keep separate entries even when they start at the same time.
+     *
+     * @param epochMinute the start of the session
+     * @param id          the session ID
+     * @return the key
+     */
+    private static long key(int epochMinute, int id) {
+        return ((long) epochMinute << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds a session to its instructor's schedule. The session must already have its ID.
+     * Check {@link #findConflict} first; sessions restored from before overlaps were rejected are still accepted.
+     *
+     * @param session the session to add
+     */
+    public void add(Session session) {
+        sessionsByInstructor.computeIfAbsent(session.getInstructor(), i -> new TreeMap<>())
+                .put(key(session.getEpochMinute(), session.getId()), session);
+    }
+
+    /**
+     * Returns a session of an instructor that overlaps a time interval.
+     *
+     * @param instructor the instructor
+     * @param start      the start of the interval in epoch minutes (inclusive)
+     * @param end        the end of the interval in epoch minutes (exclusive)
+     * @return an overlapping session, or null if the instructor is free for the whole interval
+     */
+    public Session findConflict(Instructor instructor, int start, int end) {
+        NavigableMap<Long, Session> sessions = sessionsByInstructor.get(instructor);
+        if (sessions == null) {
+            return null;
+        }
+        long earliest = key(start - MAX_DURATION_MINUTES, 0);
+        for (Session session : sessions.subMap(earliest, false, key(end, 0), false).descendingMap().values()) {
+            if (session.getEndEpochMinute() > start) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if an instructor has no session during a time interval.
+     *
+     * @param instructor the instructor
+     * @param start      the start of the interval in epoch minutes (inclusive)
+     * @param end        the end of the interval in epoch minutes (exclusive)
+     * @return true if the instructor is free for the whole interval
+     */
+    public boolean isFree(Instructor instructor, int start, int end) {
+        return findConflict(instructor, start, end) == null;
+    }
+}
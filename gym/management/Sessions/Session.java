@@ -1,14 +1,21 @@
 package gym.management.Sessions;
 
 import gym.customers.Client;
-import gym.customers.Gender;
 import gym.management.Instructor;
+import gym.time.DateCodec;
+import gym.time.GymClock;
+import gym.time.StudioClock;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a gym session.
@@ -16,12 +23,19 @@ import java.util.Objects;
  */
 public abstract class Session {
     protected SessionType type;
-    protected LocalDateTime dateTime;
+    protected int epochMinute; // Start time in minutes since 1970-01-01 00:00, see DateCodec
     protected ForumType forum;
     protected Instructor instructor;
     protected int capacity;
     protected double price;
-    protected List<Client> participants;
+    protected CopyOnWriteArrayList<Client> participants; // Small and read far more often than written
+    private final AtomicInteger reservedSeats; // Seats taken or being taken by bookings in progress
+    private final ConcurrentLinkedQueue<WaitlistEntry> waitlist; // Waiting clients, first come first served
+    private final Map<Client, WaitlistEntry> waitlisted;         // The live entry of each waiting client
+    private volatile boolean archived;         // Set once the session has passed and was moved to the archive
+    private int id = -1;                       // Position in the gym's schedule, assigned when the session is added
+    private volatile SessionIndex index;       // Told when the session fills up or frees a seat
+    private volatile GymClock clock;           // The gym's clock, or null before the session is added
 
     /**
      * Constructs a session with the specified details.
@@ -33,12 +47,36 @@ public abstract class Session {
      */
     protected Session(SessionType type, String dateTimeStr, ForumType forum, Instructor instructor) {
         super();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
         this.type = type;
-        this.dateTime = LocalDateTime.parse(dateTimeStr, formatter);
+        this.epochMinute = DateCodec.parseDateTime(dateTimeStr);
         this.forum = forum;
         this.instructor = Objects.requireNonNull(instructor, "Instructor cannot be null");
-        this.participants = new ArrayList<>();
+        this.participants = new CopyOnWriteArrayList<>();
+        this.reservedSeats = new AtomicInteger();
+        this.waitlist = new ConcurrentLinkedQueue<>();
+        this.waitlisted = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the ID the gym assigned to the session.
+     *
+     * @return the session ID, or -1 if the session wasn't added to a gym
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Assigns the session its ID when it is added to a gym.
+     *
+     * @param id the session ID
+     * @throws IllegalStateException if the session already has an ID
+     */
+    public void assignId(int id) {
+        if (this.id != -1) {
+            throw new IllegalStateException("The session was already added to a gym");
+        }
+        this.id = id;
     }
 
     /**
@@ -65,8 +103,27 @@ public abstract class Session {
      * @return true if the session is in the future, false otherwise
      */
     public boolean isInFuture() {
-        LocalDateTime currentDateTime = LocalDateTime.now();
-        return this.dateTime.isAfter(currentDateTime);
+        if (archived) {
+            return false;
+        }
+        return epochMinute > (clock != null ? clock.currentEpochMinute() : StudioClock.currentEpochMinute());
+    }
+
+    /**
+     * Marks the session as archived. An archived session is known to be in the past,
+     * so {@link #isInFuture()} answers without reading the clock.
+     */
+    public void markArchived() {
+        archived = true;
+    }
+
+    /**
+     * Checks if the session was moved to the archive.
+     *
+     * @return true if the session is archived, false otherwise
+     */
+    public boolean isArchived() {
+        return archived;
     }
 
     /**
@@ -75,7 +132,25 @@ public abstract class Session {
      * @return the session date and time
      */
     public LocalDateTime getDateTime() {
-        return dateTime;
+        return DateCodec.toLocalDateTime(epochMinute);
+    }
+
+    /**
+     * Gets the session start time as minutes since 1970-01-01 00:00.
+     *
+     * @return the session start time in epoch minutes
+     */
+    public int getEpochMinute() {
+        return epochMinute;
+    }
+
+    /**
+     * Gets the session end time as minutes since 1970-01-01 00:00, from the duration of its type.
+     *
+     * @return the session end time in epoch minutes (exclusive)
+     */
+    public int getEndEpochMinute() {
+        return epochMinute + type.getDurationMinutes();
     }
 
     /**
@@ -111,7 +186,100 @@ public abstract class Session {
      * @return true if the session has no available spots, false otherwise
      */
     public boolean isFull() {
-        return this.participants.size() >= this.capacity;
+        return reservedSeats.get() >= this.capacity;
+    }
+
+    /**
+     * Atomically reserves a seat in the session if one is available.
+     * A reserved seat must later be filled with {@link #registerClient(Client)} or given back with
+     * {@link #releaseSeat()}.
+     *
+     * @return true if a seat was reserved, false if the session is full
+     */
+    public boolean reserveSeat() {
+        int reserved;
+        do {
+            reserved = reservedSeats.get();
+            if (reserved >= capacity) {
+                return false;
+            }
+        } while (!reservedSeats.compareAndSet(reserved, reserved + 1));
+        if (reserved + 1 == capacity) {
+            seatsChanged();
+        }
+        return true;
+    }
+
+    /**
+     * Atomically reserves up to a number of seats in the session, as many as are available.
+     *
+     * @param count the number of seats wanted
+     * @return the number of seats reserved, between 0 and {@code count}
+     */
+    public int reserveSeats(int count) {
+        int reserved;
+        int granted;
+        do {
+            reserved = reservedSeats.get();
+            granted = Math.max(0, Math.min(count, capacity - reserved));
+            if (granted == 0) {
+                return 0;
+            }
+        } while (!reservedSeats.compareAndSet(reserved, reserved + granted));
+        if (reserved + granted == capacity) {
+            seatsChanged();
+        }
+        return granted;
+    }
+
+    /**
+     * Gives back a seat reserved with {@link #reserveSeat()} that will not be filled.
+     */
+    public void releaseSeat() {
+        if (reservedSeats.decrementAndGet() == capacity - 1) {
+            seatsChanged();
+        }
+    }
+
+    /**
+     * Gives back seats reserved with {@link #reserveSeats(int)} that will not be filled.
+     *
+     * @param count the number of seats to give back
+     */
+    public void releaseSeats(int count) {
+        int reserved = reservedSeats.addAndGet(-count);
+        if (count > 0 && reserved < capacity && reserved + count >= capacity) {
+            seatsChanged();
+        }
+    }
+
+    /**
+     * Attaches the clock of the gym the session belongs to, which its time checks read from then on.
+     * Until then they read the studio clock.
+     *
+     * @param clock the gym's clock
+     */
+    public void attachClock(GymClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Attaches the index that tracks whether the session has free spots.
+     *
+     * @param index the gym's session index
+     */
+    void attachIndex(SessionIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Tells the index that the session just filled up or freed its first seat.
+     */
+    private void seatsChanged() {
+        SessionIndex current = index;
+        if (current != null) {
+            current.seatsChanged(this);
+        }
     }
 
     /**
@@ -131,28 +299,122 @@ public abstract class Session {
      * @return true if the client is eligible, false otherwise
      */
     public boolean isClientEligible(Client client) {
-        switch (forum) {
-            case Male:
-                return client.getGender() == Gender.Male;
-            case Female:
-                return client.getGender() == Gender.Female;
-            case Seniors:
-                return client.getAge() >= 65;
-            case All:
-                return true;
-            default:
-                return false;
-        }
+        long today = clock != null ? clock.todayEpochDay() : StudioClock.todayEpochDay();
+        return (client.getEligibilityMask(today) & forum.mask()) != 0;
     }
 
     /**
-     * Registers a client for the session if there is available capacity.
+     * Registers a client for the session in a seat reserved with {@link #reserveSeat()}.
+     * If the client is already registered, the reserved seat is left untouched.
      *
      * @param client the client to register
-     * @throws IllegalStateException if the session is full
+     * @return true if the client was registered, false if the client was already registered
+     */
+    public boolean registerClient(Client client) {
+        return participants.addIfAbsent(client);
+    }
+
+    /**
+     * Removes a client from the session and gives back their seat.
+     *
+     * @param client the client to remove
+     * @return true if the client was removed, false if the client was not registered
+     */
+    public boolean unregisterClient(Client client) {
+        if (!participants.remove(client)) {
+            return false;
+        }
+        releaseSeat();
+        return true;
+    }
+
+    /**
+     * Removes a client from the session but keeps their seat reserved, so it can be handed to another
+     * client with {@link #registerClient(Client)} before anyone else can take it, or given back with
+     * {@link #releaseSeat()}.
+     *
+     * @param client the client to remove
+     * @return true if the client was removed, false if the client was not registered
+     */
+    public boolean vacateSeat(Client client) {
+        return participants.remove(client);
+    }
+
+    /**
+     * Adds a client to the end of the session's waitlist.
+     *
+     * @param client the client waiting for a spot
+     * @return true if the client was added, false if the client was already waiting
+     */
+    public boolean addToWaitlist(Client client) {
+        WaitlistEntry entry = new WaitlistEntry(client);
+        if (waitlisted.putIfAbsent(client, entry) != null) {
+            return false;
+        }
+        waitlist.offer(entry); // If the client leaves before this, the entry is already claimed and polling skips it
+        return true;
+    }
+
+    /**
+     * Removes and returns the client at the head of the waitlist.
+     *
+     * @return the client who has waited longest, or null if nobody is waiting
      */
-    public void registerClient(Client client) {
-        participants.add(client);
+    public Client pollWaitlist() {
+        WaitlistEntry entry;
+        while ((entry = waitlist.poll()) != null) {
+            if (entry.claim()) {
+                waitlisted.remove(entry.client, entry);
+                return entry.client;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes a client from the waitlist, wherever they are in it.
+     * The entry is only marked as claimed and skipped when it reaches the head, so this takes constant time.
+     *
+     * @param client the client to remove
+     * @return true if the client was waiting, false if the client wasn't waiting or was just taken off the waitlist
+     */
+    public boolean removeFromWaitlist(Client client) {
+        WaitlistEntry entry = waitlisted.remove(client);
+        return entry != null && entry.claim();
+    }
+
+    /**
+     * Checks if a client is on the session's waitlist.
+     *
+     * @param client the client to check
+     * @return true if the client is waiting for a spot
+     */
+    public boolean isWaitlisted(Client client) {
+        return waitlisted.containsKey(client);
+    }
+
+    /**
+     * Returns the number of clients on the waitlist.
+     *
+     * @return the waitlist length
+     */
+    public int getWaitlistSize() {
+        return waitlisted.size();
+    }
+
+    /**
+     * Returns the clients on the waitlist, in the order they will be offered a spot.
+     *
+     * @return a copy of the waitlist
+     */
+    public List<Client> getWaitlist() {
+        List<Client> clients = new ArrayList<>();
+        for (WaitlistEntry entry : waitlist) {
+            if (!entry.isClaimed()) {
+                clients.add(entry.client);
+            }
+        }
+        return clients;
     }
 
     /**
@@ -162,11 +424,13 @@ public abstract class Session {
      */
     @Override
     public String toString() {
-        return "Session Type: " + type +
-                " | Date: " + dateTime.format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm")) +
-                " | Forum: " + forum +
-                " | Instructor: " + instructor.getName() +
-                " | Participants: " + participants.size() + "/" + capacity;
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("Session Type: ").append(type).append(" | Date: ");
+        DateCodec.appendDateTime(sb, epochMinute);
+        return sb.append(" | Forum: ").append(forum)
+                .append(" | Instructor: ").append(instructor.getName())
+                .append(" | Participants: ").append(participants.size()).append('/').append(capacity)
+                .toString();
     }
 
     /**
@@ -187,7 +451,7 @@ public abstract class Session {
         Session session = (Session) obj;
 
         return type == session.type &&
-                dateTime.equals(session.dateTime) &&
+                epochMinute == session.epochMinute &&
                 forum == session.forum &&
                 instructor.equals(session.instructor);
     }
@@ -199,6 +463,38 @@ public abstract class Session {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(type, dateTime, forum, instructor);
+        return Objects.hash(type, epochMinute, forum, instructor);
+    }
+
+    /**
+     * A client's place in a waitlist. Whoever claims the entry first, the poller promoting the client
+     * or the client leaving the waitlist, decides its fate, so a client who left is never promoted.
+     */
+    private static class WaitlistEntry {
+        private final Client client;
+        private final AtomicBoolean claimed;
+
+        WaitlistEntry(Client client) {
+            this.client = client;
+            this.claimed = new AtomicBoolean();
+        }
+
+        /**
+         * Claims the entry.
+         *
+         * @return true if this call claimed it, false if it was already claimed
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Checks if the entry was claimed.
+         *
+         * @return true if the client was promoted or left the waitlist
+         */
+        boolean isClaimed() {
+            return claimed.get();
+        }
     }
 }
@@ -0,0 +1,175 @@
+package gym.management.Sessions;
+
+import gym.time.DateCodec;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Indexes sessions by the day they take place on.
+ * Each day keeps its sessions ordered by start time, so date and date-range lookups
+ * only touch the sessions that actually match.
+ */
+public class SessionCalendar {
+    private final NavigableMap<LocalDate, List<Session>> sessionsByDate;
+
+    /**
+     * Creates an empty calendar.
+     */
+    public SessionCalendar() {
+        sessionsByDate = new TreeMap<>();
+    }
+
+    /**
+     * Adds a session to the calendar.
+     * Sessions on the same day are kept ordered by start time; sessions starting at the same
+     * time keep the order in which they were added.
+     *
+     * @param session the session to add
+     */
+    public void add(Session session) {
+        int start = session.getEpochMinute();
+        List<Session> day = sessionsByDate.computeIfAbsent(dateOf(start), d -> new ArrayList<>());
+        int index = day.size();
+        while (index > 0 && day.get(index - 1).getEpochMinute() > start) {
+            index--;
+        }
+        day.add(index, session);
+    }
+
+    /**
+     * Removes a session from the calendar.
+     *
+     * @param session the session to remove
+     */
+    public void remove(Session session) {
+        LocalDate date = dateOf(session.getEpochMinute());
+        List<Session> day = sessionsByDate.get(date);
+        if (day != null && day.removeIf(s -> s == session) && day.isEmpty()) {
+            sessionsByDate.remove(date);
+        }
+    }
+
+    /**
+     * Removes the sessions starting at or before a given time.
+     *
+     * @param epochMinute the latest start time to remove, in epoch minutes
+     * @return the removed sessions, ordered by start time
+     */
+    public List<Session> removeUntil(int epochMinute) {
+        List<Session> removed = new ArrayList<>();
+        LocalDate date = dateOf(epochMinute);
+        NavigableMap<LocalDate, List<Session>> pastDays = sessionsByDate.headMap(date, false);
+        for (List<Session> day : pastDays.values()) {
+            removed.addAll(day);
+        }
+        pastDays.clear();
+        List<Session> today = sessionsByDate.get(date);
+        if (today != null) {
+            int count = 0;
+            while (count < today.size() && today.get(count).getEpochMinute() <= epochMinute) {
+                count++;
+            }
+            List<Session> started = today.subList(0, count);
+            removed.addAll(started);
+            started.clear();
+            if (today.isEmpty()) {
+                sessionsByDate.remove(date);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the sessions taking place on a specific day, ordered by start time.
+     *
+     * @param date the day to look up
+     * @return an unmodifiable list of the sessions on that day
+     */
+    public List<Session> getSessionsOn(LocalDate date) {
+        List<Session> day = sessionsByDate.get(date);
+        return day == null ? Collections.emptyList() : Collections.unmodifiableList(day);
+    }
+
+    /**
+     * Returns the sessions taking place between two days, both inclusive, ordered by start time.
+     *
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return a list of the sessions in the range
+     */
+    public List<Session> getSessionsBetween(LocalDate from, LocalDate to) {
+        List<Session> result = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        for (List<Session> day : sessionsByDate.subMap(from, true, to, true).values()) {
+            result.addAll(day);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sessions starting at or after {@code from} and before {@code to}, ordered by start time.
+     *
+     * @param from the start of the range (inclusive)
+     * @param to   the end of the range (exclusive)
+     * @return a list of the sessions in the range
+     */
+    public List<Session> getSessionsBetween(LocalDateTime from, LocalDateTime to) {
+        List<Session> result = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return result;
+        }
+        int fromMinute = ceilingMinute(from);
+        int toMinute = ceilingMinute(to);
+        for (Map.Entry<LocalDate, List<Session>> entry
+                : sessionsByDate.subMap(from.toLocalDate(), true, to.toLocalDate(), true).entrySet()) {
+            boolean edgeDay = entry.getKey().equals(from.toLocalDate()) || entry.getKey().equals(to.toLocalDate());
+            for (Session session : entry.getValue()) {
+                if (!edgeDay || (session.getEpochMinute() >= fromMinute && session.getEpochMinute() < toMinute)) {
+                    result.add(session);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sessions taking place in the seven days starting at {@code weekStart}.
+     *
+     * @param weekStart the first day of the week
+     * @return a list of the sessions in that week
+     */
+    public List<Session> getSessionsInWeek(LocalDate weekStart) {
+        return getSessionsBetween(weekStart, weekStart.plusDays(6));
+    }
+
+    /**
+     * Returns the day an epoch minute falls on.
+     *
+     * @param epochMinute the epoch minute
+     * @return the day
+     */
+    private static LocalDate dateOf(int epochMinute) {
+        return LocalDate.ofEpochDay(DateCodec.toEpochDay(epochMinute));
+    }
+
+    /**
+     * Returns the first whole minute at or after a time, so that sessions, which start on whole minutes,
+     * can be compared with it exactly.
+     *
+     * @param time the time
+     * @return the epoch minute
+     */
+    private static int ceilingMinute(LocalDateTime time) {
+        int minute = DateCodec.toEpochMinute(time);
+        return time.getSecond() == 0 && time.getNano() == 0 ? minute : minute + 1;
+    }
+}
@@ -0,0 +1,133 @@
+package gym.management.Sessions;
+
+import gym.management.Instructor;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indexes live sessions as bit sets over session IDs: by forum, by type, by instructor,
+ * and whether they are full.
+ * A search ANDs the bit sets of its criteria, so it only visits the sessions that match all of them.
+ * A client's eligibility mask selects the forums they may join, so finding every session a client
+ * is eligible for is one OR per matching forum followed by one AND with the live sessions.
+ * <p>
+ * Sessions are added and archived by the gym, but they fill up and free seats on whichever thread
+ * books them, so all methods are synchronized.
+ */
+public class SessionIndex {
+    private static final ForumType[] FORUM_TYPES = ForumType.values();
+    private static final SessionType[] SESSION_TYPES = SessionType.values();
+
+    private final BitSet[] sessionsByForum;                   // Indexed by forum ordinal
+    private final BitSet[] sessionsByType;                    // Indexed by session type ordinal
+    private final Map<Instructor, BitSet> sessionsByInstructor;
+    private final BitSet live;                                // Sessions that haven't been archived
+    private final BitSet full;                                // Sessions with no free spot
+
+    /**
+     * Creates an empty index.
+     */
+    public SessionIndex() {
+        sessionsByForum = newBitSets(FORUM_TYPES.length);
+        sessionsByType = newBitSets(SESSION_TYPES.length);
+        sessionsByInstructor = new HashMap<>();
+        live = new BitSet();
+        full = new BitSet();
+    }
+
+    /**
+     * Creates an array of empty bit sets.
+     *
+     * @param count the number of bit sets
+     * @return the bit sets
+     */
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+
+    /**
+     * Adds a session to the index. The session must already have its ID.
+     * From then on the session tells the index when it fills up or frees a seat.
+     *
+     * @param session the session to add
+     */
+    public synchronized void add(Session session) {
+        int id = session.getId();
+        sessionsByForum[session.getForum().ordinal()].set(id);
+        sessionsByType[session.getType().ordinal()].set(id);
+        sessionsByInstructor.computeIfAbsent(session.getInstructor(), i -> new BitSet()).set(id);
+        live.set(id, !session.isArchived());
+        session.attachIndex(this);
+        full.set(id, session.isFull());
+    }
+
+    /**
+     * Marks a session as archived, so it no longer matches any search.
+     *
+     * @param session the archived session
+     */
+    public synchronized void archive(Session session) {
+        live.clear(session.getId());
+    }
+
+    /**
+     * Updates whether a session is full. The current seat count is read inside the lock, so concurrent
+     * updates for the same session always leave the latest state behind.
+     *
+     * @param session the session that filled up or freed a seat
+     */
+    synchronized void seatsChanged(Session session) {
+        full.set(session.getId(), session.isFull());
+    }
+
+    /**
+     * Returns the IDs of the live sessions whose forum is in a client's eligibility mask.
+     *
+     * @param eligibilityMask the client's eligibility mask, see {@link ForumType#mask()}
+     * @return a new bit set with the matching session IDs
+     */
+    public synchronized BitSet matching(int eligibilityMask) {
+        BitSet result = new BitSet();
+        for (ForumType forum : FORUM_TYPES) {
+            if ((eligibilityMask & forum.mask()) != 0) {
+                result.or(sessionsByForum[forum.ordinal()]);
+            }
+        }
+        result.and(live);
+        return result;
+    }
+
+    /**
+     * Returns the IDs of the live sessions that match the type, forum, instructor and free-spot criteria
+     * of a query. The date range is not checked here.
+     *
+     * @param query the search criteria
+     * @return a new bit set with the matching session IDs
+     */
+    public synchronized BitSet matching(SessionQuery query) {
+        BitSet result = (BitSet) live.clone();
+        if (query.getType() != null) {
+            result.and(sessionsByType[query.getType().ordinal()]);
+        }
+        if (query.getForum() != null) {
+            result.and(sessionsByForum[query.getForum().ordinal()]);
+        }
+        if (query.getInstructor() != null) {
+            BitSet led = sessionsByInstructor.get(query.getInstructor());
+            if (led == null) {
+                return new BitSet();
+            }
+            result.and(led);
+        }
+        if (query.isFreeSpotsOnly()) {
+            result.andNot(full);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,181 @@
+package gym.management.Sessions;
+
+import gym.management.Instructor;
+import gym.time.DateCodec;
+
+import java.time.LocalDateTime;
+
+/**
+ * Describes a search for open sessions: sessions that haven't started yet, optionally narrowed down
+ * by type, forum, instructor, date range, and whether they still have free spots.
+ * Criteria that are not set match every session.
+ * <p>
+ * Example:
+ * <pre>
+ * SessionQuery query = new SessionQuery()
+ *         .withType(SessionType.Pilates)
+ *         .between(weekStart.atStartOfDay(), weekStart.plusDays(7).atStartOfDay())
+ *         .withFreeSpots();
+ * List&lt;Session&gt; sessions = gym.findSessions(query);
+ * </pre>
+ */
+public class SessionQuery {
+    private SessionType type;
+    private ForumType forum;
+    private Instructor instructor;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int fromMinute = Integer.MIN_VALUE; // First epoch minute in the range
+    private int toMinute = Integer.MAX_VALUE;   // First epoch minute after the range
+    private boolean freeSpotsOnly;
+
+    /**
+     * Creates a query that matches every open session.
+     */
+    public SessionQuery() {
+    }
+
+    /**
+     * Only matches sessions of a given type.
+     *
+     * @param type the session type
+     * @return this query
+     */
+    public SessionQuery withType(SessionType type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Only matches sessions in a given forum.
+     *
+     * @param forum the forum type
+     * @return this query
+     */
+    public SessionQuery withForum(ForumType forum) {
+        this.forum = forum;
+        return this;
+    }
+
+    /**
+     * Only matches sessions led by a given instructor.
+     *
+     * @param instructor the instructor
+     * @return this query
+     */
+    public SessionQuery withInstructor(Instructor instructor) {
+        this.instructor = instructor;
+        return this;
+    }
+
+    /**
+     * Only matches sessions starting at or after {@code from} and before {@code to}.
+     * Either bound may be null to leave that side of the range open.
+     *
+     * @param from the start of the range (inclusive), or null for no lower bound
+     * @param to   the end of the range (exclusive), or null for no upper bound
+     * @return this query
+     */
+    public SessionQuery between(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        this.fromMinute = from == null ? Integer.MIN_VALUE : ceilingMinute(from);
+        this.toMinute = to == null ? Integer.MAX_VALUE : ceilingMinute(to);
+        return this;
+    }
+
+    /**
+     * Returns the first whole minute at or after a time, so that sessions, which start on whole minutes,
+     * can be compared with it exactly.
+     *
+     * @param time the time
+     * @return the epoch minute
+     */
+    private static int ceilingMinute(LocalDateTime time) {
+        int minute = DateCodec.toEpochMinute(time);
+        return time.getSecond() == 0 && time.getNano() == 0 ? minute : minute + 1;
+    }
+
+    /**
+     * Only matches sessions that still have a free spot.
+     *
+     * @return this query
+     */
+    public SessionQuery withFreeSpots() {
+        this.freeSpotsOnly = true;
+        return this;
+    }
+
+    /**
+     * Gets the session type to match.
+     *
+     * @return the session type, or null to match every type
+     */
+    public SessionType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the forum to match.
+     *
+     * @return the forum type, or null to match every forum
+     */
+    public ForumType getForum() {
+        return forum;
+    }
+
+    /**
+     * Gets the instructor to match.
+     *
+     * @return the instructor, or null to match every instructor
+     */
+    public Instructor getInstructor() {
+        return instructor;
+    }
+
+    /**
+     * Gets the start of the date range to match.
+     *
+     * @return the start of the range (inclusive), or null if the range has no lower bound
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the end of the date range to match.
+     *
+     * @return the end of the range (exclusive), or null if the range has no upper bound
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    /**
+     * Checks if the query only matches sessions with a free spot.
+     *
+     * @return true if full sessions are left out
+     */
+    public boolean isFreeSpotsOnly() {
+        return freeSpotsOnly;
+    }
+
+    /**
+     * Checks if the query has a date range closed on both sides.
+     *
+     * @return true if {@link #between} was given both bounds
+     */
+    public boolean hasDateRange() {
+        return from != null && to != null;
+    }
+
+    /**
+     * Checks if a session starts within the query's date range. Matches every session if no range was set.
+     *
+     * @param session the session
+     * @return true if the session starts at or after the start of the range and before its end
+     */
+    public boolean isInDateRange(Session session) {
+        return session.getEpochMinute() >= fromMinute && session.getEpochMinute() < toMinute;
+    }
+}
@@ -7,20 +7,35 @@ public enum SessionType {
     /**
      * A standard Pilates session.
      */
-    Pilates,
+    Pilates(60),
 
     /**
      * A Pilates session using machines.
      */
-    MachinePilates,
+    MachinePilates(60),
 
     /**
      * A Thai Boxing session.
      */
-    ThaiBoxing,
+    ThaiBoxing(60),
 
     /**
      * A Ninja training session.
      */
-    Ninja
+    Ninja(60);
+
+    private final int durationMinutes;
+
+    SessionType(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    /**
+     * Returns how long a session of this type lasts.
+     *
+     * @return the duration in minutes
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
 }
@@ -0,0 +1,119 @@
+package gym.observer;
+
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds the notifications received by a person as IDs into the shared {@link MessageLog}.
+ * The message texts are only looked up when the notifications are read.
+ * The inbox holds a reference to each of its messages, and gives them back once it is no longer reachable,
+ * so messages nobody can read any more leave the log.
+ */
+public class Inbox {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private MessageIds ids;        // Null until the first message arrives
+    private List<String> messages; // Cached view of the messages, rebuilt after new ones arrive
+
+    /**
+     * Creates an empty inbox.
+     */
+    public Inbox() {
+    }
+
+    /**
+     * Adds a message to the inbox.
+     *
+     * @param messageId the ID of the message in the shared message log
+     * @throws IndexOutOfBoundsException if the log holds no message with that ID
+     */
+    public void add(int messageId) {
+        MessageLog.getInstance().retain(messageId);
+        synchronized (this) {
+            if (ids == null) {
+                ids = new MessageIds();
+                CLEANER.register(this, ids);
+            }
+            ids.add(messageId);
+            messages = null;
+        }
+    }
+
+    /**
+     * Returns the number of messages in the inbox.
+     *
+     * @return the number of messages
+     */
+    public synchronized int size() {
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * Returns the messages in the inbox, in the order they were received.
+     *
+     * @return an unmodifiable list of the messages
+     */
+    public synchronized List<String> getMessages() {
+        if (messages == null) {
+            messages = ids == null ? Collections.emptyList() : ids.texts();
+        }
+        return messages;
+    }
+
+    /**
+     * The message IDs of an inbox. Kept apart from the inbox so they can be released after it is collected.
+     */
+    private static final class MessageIds implements Runnable {
+        private static final int[] EMPTY = new int[0];
+
+        private int[] messageIds = EMPTY;
+        private int size;
+
+        /**
+         * Adds a message ID.
+         *
+         * @param messageId the ID of the message
+         */
+        synchronized void add(int messageId) {
+            if (size == messageIds.length) {
+                messageIds = Arrays.copyOf(messageIds, Math.max(4, size + (size >> 1)));
+            }
+            messageIds[size++] = messageId;
+        }
+
+        /**
+         * Returns the number of message IDs.
+         *
+         * @return the number of IDs
+         */
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Looks up the texts of the messages.
+         *
+         * @return an unmodifiable list of the texts, in the order the IDs were added
+         */
+        synchronized List<String> texts() {
+            MessageLog log = MessageLog.getInstance();
+            String[] texts = new String[size];
+            for (int i = 0; i < size; i++) {
+                texts[i] = log.get(messageIds[i]);
+            }
+            return Collections.unmodifiableList(Arrays.asList(texts));
+        }
+
+        /**
+         * Releases every message once the inbox has been collected.
+         */
+        @Override
+        public synchronized void run() {
+            MessageLog.getInstance().releaseAll(messageIds, size);
+            messageIds = EMPTY;
+            size = 0;
+        }
+    }
+}
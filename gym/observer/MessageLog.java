@@ -0,0 +1,151 @@
+package gym.observer;
+
+import java.util.Arrays;
+
+/**
+ * A shared store of the notification messages that are still referenced somewhere in the system.
+ * Each message is stored once and identified by an ID, so inboxes only need to keep message IDs.
+ * <p>
+ * Messages are reference counted: {@link #append} returns a message with one reference held by the caller,
+ * every inbox holding the message adds one with {@link #retain}, and each holder gives its reference back
+ * with {@link #release}. A message is evicted when its last reference is released, and its ID is reused.
+ */
+public class MessageLog {
+    private static final MessageLog instance = new MessageLog();
+
+    private String[] messages;  // Indexed by message ID; null for free IDs
+    private int[] references;   // Number of holders of each message
+    private int[] freeIds;      // IDs of evicted messages, reused before new ones
+    private int freeCount;
+    private int idCount;        // IDs handed out so far, free or not
+    private int size;
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private MessageLog() {
+        messages = new String[64];
+        references = new int[64];
+        freeIds = new int[16];
+        freeCount = 0;
+        idCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the shared message log.
+     *
+     * @return the MessageLog instance
+     */
+    public static MessageLog getInstance() {
+        return instance;
+    }
+
+    /**
+     * Stores a new message in the log. The caller holds one reference to the message
+     * and must {@link #release} it once the message has been delivered.
+     *
+     * @param message the message to store
+     * @return the ID of the stored message
+     */
+    public synchronized int append(String message) {
+        int messageId;
+        if (freeCount > 0) {
+            messageId = freeIds[--freeCount];
+        } else {
+            if (idCount == messages.length) {
+                messages = Arrays.copyOf(messages, idCount + (idCount >> 1));
+                references = Arrays.copyOf(references, messages.length);
+            }
+            messageId = idCount++;
+        }
+        messages[messageId] = message;
+        references[messageId] = 1;
+        size++;
+        return messageId;
+    }
+
+    /**
+     * Adds a reference to a stored message, which keeps it in the log until the reference is released.
+     *
+     * @param messageId the ID of the message
+     * @throws IndexOutOfBoundsException if no message with that ID is stored
+     */
+    public synchronized void retain(int messageId) {
+        check(messageId);
+        references[messageId]++;
+    }
+
+    /**
+     * Gives back a reference to a stored message, evicting the message if it was the last one.
+     *
+     * @param messageId the ID of the message
+     * @throws IndexOutOfBoundsException if no message with that ID is stored
+     */
+    public synchronized void release(int messageId) {
+        check(messageId);
+        releaseUnchecked(messageId);
+    }
+
+    /**
+     * Gives back one reference to each of several stored messages.
+     *
+     * @param messageIds the IDs of the messages; an ID may appear more than once
+     * @param count      the number of IDs to release, from the start of the array
+     */
+    synchronized void releaseAll(int[] messageIds, int count) {
+        for (int i = 0; i < count; i++) {
+            releaseUnchecked(messageIds[i]);
+        }
+    }
+
+    /**
+     * Returns a stored message.
+     *
+     * @param messageId the ID of the message
+     * @return the message
+     * @throws IndexOutOfBoundsException if no message with that ID is stored
+     */
+    public synchronized String get(int messageId) {
+        check(messageId);
+        return messages[messageId];
+    }
+
+    /**
+     * Returns the number of messages stored in the log.
+     *
+     * @return the number of messages
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gives back a reference to a message known to be stored.
+     *
+     * @param messageId the ID of the message
+     */
+    private void releaseUnchecked(int messageId) {
+        if (--references[messageId] > 0) {
+            return;
+        }
+        messages[messageId] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = messageId;
+        size--;
+    }
+
+    /**
+     * Checks that a message ID refers to a stored message.
+     *
+     * @param messageId the ID of the message
+     * @throws IndexOutOfBoundsException if no message with that ID is stored
+     */
+    private void check(int messageId) {
+        if (messageId < 0 || messageId >= idCount || messages[messageId] == null) {
+            throw new IndexOutOfBoundsException("Unknown message ID: " + messageId);
+        }
+    }
+}
@@ -11,4 +11,11 @@ public interface Notification {
      * @param message the message to add
      */
     void addNotification(String message);
+
+    /**
+     * Adds a notification that is already stored in the shared {@link MessageLog}.
+     *
+     * @param messageId the ID of the message in the log
+     */
+    void addNotification(int messageId);
 }
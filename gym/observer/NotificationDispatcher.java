@@ -0,0 +1,283 @@
+package gym.observer;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers notifications asynchronously on background worker threads.
+ * <p>
+ * Receivers are split into lanes by ID, and each lane has a single worker that delivers its jobs
+ * in the order they were dispatched, so every receiver gets its messages in dispatch order.
+ * Workers run on virtual threads when the runtime supports them, and on daemon platform threads otherwise.
+ * Each lane holds a bounded number of pending jobs; what happens when a lane is full is decided by
+ * the {@link Backpressure} policy.
+ */
+public class NotificationDispatcher {
+    /**
+     * What to do when a lane already holds its maximum number of pending jobs.
+     */
+    public enum Backpressure {
+        /**
+         * Wait until the lane has room.
+         */
+        Block,
+
+        /**
+         * Discard the deliveries for that lane.
+         */
+        Drop,
+
+        /**
+         * Append the deliveries to the last pending job of the lane.
+         */
+        Coalesce
+    }
+
+    private final Lane[] lanes;
+    private final Backpressure backpressure;
+    private final AtomicLong droppedDeliveries;
+
+    /**
+     * Creates a dispatcher and starts its workers.
+     *
+     * @param laneCount     the number of lanes, and therefore worker threads
+     * @param queueCapacity the maximum number of pending jobs per lane
+     * @param backpressure  the policy applied when a lane is full
+     * @throws IllegalArgumentException if the lane count or the capacity is smaller than 1
+     */
+    public NotificationDispatcher(int laneCount, int queueCapacity, Backpressure backpressure) {
+        if (laneCount < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Lane count and queue capacity must be at least 1");
+        }
+        this.backpressure = backpressure;
+        this.droppedDeliveries = new AtomicLong();
+        this.lanes = new Lane[laneCount];
+        ThreadFactory threads = workerThreadFactory();
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(queueCapacity);
+            threads.newThread(lanes[i]::run).start();
+        }
+    }
+
+    /**
+     * Queues a message for delivery to a group of receivers. Each queued delivery holds a reference to
+     * the message in the message log until it is done, so the caller may release its own right away.
+     *
+     * @param recipients the receivers to deliver to; the array must not be changed afterwards
+     * @param messageId  the ID of the message in the shared message log
+     * @throws IllegalStateException if the dispatcher was shut down
+     */
+    public void dispatch(Receiver[] recipients, int messageId) {
+        if (lanes.length == 1) {
+            lanes[0].offer(recipients, messageId);
+            return;
+        }
+        List<List<Receiver>> perLane = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            perLane.add(new ArrayList<>());
+        }
+        for (Receiver receiver : recipients) {
+            perLane.get(Math.floorMod(receiver.getId(), lanes.length)).add(receiver);
+        }
+        for (int i = 0; i < lanes.length; i++) {
+            if (!perLane.get(i).isEmpty()) {
+                lanes[i].offer(perLane.get(i).toArray(new Receiver[0]), messageId);
+            }
+        }
+    }
+
+    /**
+     * Waits until every job dispatched so far has been delivered.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        for (Lane lane : lanes) {
+            lane.awaitIdle();
+        }
+    }
+
+    /**
+     * Returns the number of single deliveries discarded because of the {@link Backpressure#Drop} policy.
+     *
+     * @return the number of dropped deliveries
+     */
+    public long getDroppedDeliveries() {
+        return droppedDeliveries.get();
+    }
+
+    /**
+     * Stops accepting new jobs. Jobs already queued are still delivered.
+     */
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Returns a factory for virtual threads if the runtime supports them, or for daemon platform threads.
+     *
+     * @return the worker thread factory
+     */
+    private static ThreadFactory workerThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return runnable -> {
+                Thread thread = new Thread(runnable, "notification-dispatcher");
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * A batch of deliveries: each message is delivered to its receivers, in order.
+     */
+    private static class Job {
+        private final List<Receiver[]> recipients = new ArrayList<>(1);
+        private final List<Integer> messageIds = new ArrayList<>(1);
+
+        void add(Receiver[] receivers, int messageId) {
+            recipients.add(receivers);
+            messageIds.add(messageId);
+        }
+
+        void deliver() {
+            MessageLog log = MessageLog.getInstance();
+            int released = 0;
+            try {
+                for (int i = 0; i < recipients.size(); i++) {
+                    int messageId = messageIds.get(i);
+                    try {
+                        for (Receiver receiver : recipients.get(i)) {
+                            receiver.update(messageId);
+                        }
+                    } finally {
+                        released++;
+                        log.release(messageId);
+                    }
+                }
+            } finally {
+                for (int i = released; i < messageIds.size(); i++) {
+                    log.release(messageIds.get(i)); // Not delivered because an earlier delivery failed
+                }
+            }
+        }
+    }
+
+    /**
+     * A bounded queue of jobs with the single worker that delivers them.
+     */
+    private class Lane {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final Condition idle = lock.newCondition();
+        private final ArrayDeque<Job> queue = new ArrayDeque<>();
+        private final int capacity;
+        private boolean delivering;
+        private boolean shutdown;
+
+        Lane(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void offer(Receiver[] receivers, int messageId) {
+            lock.lock();
+            try {
+                if (shutdown) {
+                    throw new IllegalStateException("The notification dispatcher was shut down");
+                }
+                if (queue.size() >= capacity) {
+                    switch (backpressure) {
+                        case Drop:
+                            droppedDeliveries.addAndGet(receivers.length);
+                            return;
+                        case Coalesce:
+                            MessageLog.getInstance().retain(messageId);
+                            queue.peekLast().add(receivers, messageId);
+                            return;
+                        default:
+                            while (queue.size() >= capacity) {
+                                notFull.awaitUninterruptibly();
+                            }
+                    }
+                }
+                MessageLog.getInstance().retain(messageId);
+                Job job = new Job();
+                job.add(receivers, messageId);
+                queue.addLast(job);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void run() {
+            while (true) {
+                Job job;
+                lock.lock();
+                try {
+                    while (queue.isEmpty()) {
+                        if (shutdown) {
+                            return;
+                        }
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    job = queue.pollFirst();
+                    delivering = true;
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    job.deliver();
+                } catch (RuntimeException e) {
+                    Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                } finally {
+                    lock.lock();
+                    try {
+                        delivering = false;
+                        if (queue.isEmpty()) {
+                            idle.signalAll();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+
+        void awaitIdle() throws InterruptedException {
+            lock.lock();
+            try {
+                while (delivering || !queue.isEmpty()) {
+                    idle.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void shutdown() {
+            lock.lock();
+            try {
+                shutdown = true;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -6,10 +6,27 @@ package gym.observer;
  */
 public interface Receiver {
 
+    /**
+     * Returns a non-negative ID that uniquely identifies this receiver.
+     * Used to deliver a message to each receiver only once.
+     *
+     * @return the receiver ID
+     */
+    int getId();
+
     /**
      * Handles an incoming message.
      *
      * @param message the message to process
      */
     void update(String message);
+
+    /**
+     * Handles an incoming message that is stored in the shared {@link MessageLog}.
+     *
+     * @param messageId the ID of the message in the log
+     */
+    default void update(int messageId) {
+        update(MessageLog.getInstance().get(messageId));
+    }
 }
@@ -1,14 +1,21 @@
 package gym.observer;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Manages a list of receivers and sends notifications to them.
  * Used for handling communication in the gym system.
+ * Notifications are delivered synchronously unless a {@link NotificationDispatcher} is set.
  */
 public class Sender {
+    // Per-thread scratch set of receiver IDs used by broadcastOnce; null while a delivery is using it
+    private static final ThreadLocal<BitSet> DELIVERED = ThreadLocal.withInitial(BitSet::new);
+
     private List<Receiver> receivers;
+    private volatile NotificationDispatcher dispatcher; // null while delivering synchronously
 
     /**
      * Creates a new Sender with an empty list of receivers.
@@ -43,10 +50,146 @@ public class Sender {
      * @param message the message to send
      */
     public void notifyReceivers(String message) {
-        for (Receiver receiver : receivers) {
-            receiver.update(message);
+        broadcast(receivers, message);
+    }
+
+    /**
+     * Sends a notification message directly to a group of receivers, without attaching them.
+     * The message is stored once in the shared message log and receivers get its ID;
+     * it is not stored at all if there are no receivers.
+     *
+     * @param recipients the receivers to send the message to
+     * @param message    the message to send
+     * @return the number of receivers the message was sent to
+     */
+    public int broadcast(Iterable<? extends Receiver> recipients, String message) {
+        MessageLog log = MessageLog.getInstance();
+        NotificationDispatcher async = dispatcher;
+        if (async != null) {
+            List<Receiver> snapshot = new ArrayList<>();
+            recipients.forEach(snapshot::add);
+            if (!snapshot.isEmpty()) {
+                int messageId = log.append(message);
+                try {
+                    async.dispatch(snapshot.toArray(new Receiver[0]), messageId);
+                } finally {
+                    log.release(messageId);
+                }
+            }
+            return snapshot.size();
+        }
+        int messageId = -1; // Stored when the first receiver is reached
+        int count = 0;
+        try {
+            for (Receiver receiver : recipients) {
+                if (messageId < 0) {
+                    messageId = log.append(message);
+                }
+                receiver.update(messageId);
+                count++;
+            }
+        } finally {
+            if (messageId >= 0) {
+                log.release(messageId);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sends a notification message directly to the receivers of several groups, without attaching them.
+     * A receiver that belongs to more than one group gets the message only once, in the position of
+     * its first appearance. Safe to call again from within a receiver while a delivery is in progress.
+     *
+     * @param groups     the groups whose receivers should get the message
+     * @param recipients maps a group to its receivers
+     * @param message    the message to send
+     * @param <T>        the type of the groups
+     * @return the number of receivers the message was sent to
+     */
+    public <T> int broadcastOnce(Iterable<T> groups, Function<? super T, ? extends Iterable<? extends Receiver>> recipients,
+                                  String message) {
+        MessageLog log = MessageLog.getInstance();
+        int messageId = -1; // Stored when the first receiver is reached
+        NotificationDispatcher async = dispatcher;
+        List<Receiver> snapshot = async == null ? null : new ArrayList<>();
+        int count = 0;
+        BitSet delivered = DELIVERED.get();
+        boolean pooled = delivered != null;
+        if (pooled) {
+            DELIVERED.set(null); // Nested deliveries on this thread get their own set
+        } else {
+            delivered = new BitSet();
+        }
+        try {
+            for (T group : groups) {
+                for (Receiver receiver : recipients.apply(group)) {
+                    int id = receiver.getId();
+                    if (!delivered.get(id)) {
+                        delivered.set(id);
+                        count++;
+                        if (snapshot != null) {
+                            snapshot.add(receiver);
+                        } else {
+                            if (messageId < 0) {
+                                messageId = log.append(message);
+                            }
+                            receiver.update(messageId);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (pooled) {
+                delivered.clear();
+                DELIVERED.set(delivered);
+            }
+            if (messageId >= 0) {
+                log.release(messageId);
+            }
+        }
+        if (snapshot != null && !snapshot.isEmpty()) {
+            messageId = log.append(message);
+            try {
+                async.dispatch(snapshot.toArray(new Receiver[0]), messageId);
+            } finally {
+                log.release(messageId);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Switches between synchronous and asynchronous delivery.
+     *
+     * @param dispatcher the dispatcher to deliver through, or null to deliver synchronously
+     */
+    public void setNotificationDispatcher(NotificationDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Returns the dispatcher used for asynchronous delivery.
+     *
+     * @return the dispatcher, or null if notifications are delivered synchronously
+     */
+    public NotificationDispatcher getNotificationDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Waits until every notification sent so far has been delivered.
+     * Returns immediately when notifications are delivered synchronously.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flushNotifications() throws InterruptedException {
+        NotificationDispatcher async = dispatcher;
+        if (async != null) {
+            async.flush();
         }
     }
+
     protected List<Receiver> getReceivers() {
         return receivers;
     }
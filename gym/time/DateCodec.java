@@ -0,0 +1,399 @@
+package gym.time;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses and formats the date formats used across the gym system without creating formatters or temporal objects.
+ * Dates are represented as epoch days and date-times as epoch minutes (minutes since 1970-01-01 00:00, local time).
+ * <ul>
+ *     <li>{@code dd-MM-yyyy} - birthdays and notification dates</li>
+ *     <li>{@code dd-MM-yyyy HH:mm} - session times</li>
+ *     <li>{@code yyyy-MM-dd} and {@code yyyy-MM-dd'T'HH:mm} - the action history</li>
+ * </ul>
+ * Invalid days of the month are clamped to the last day of the month, like {@link java.time.format.ResolverStyle#SMART}.
+ */
+public final class DateCodec {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int DAYS_0000_TO_1970 = 719_468; // Days from 0000-03-01 to 1970-01-01
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private DateCodec() {
+    }
+
+    /**
+     * Parses a date in "dd-MM-yyyy" format.
+     *
+     * @param text the date
+     * @return the epoch day
+     * @throws DateTimeParseException if the text is not a valid date
+     */
+    public static long parseDate(CharSequence text) {
+        if (text.length() != 10 || text.charAt(2) != '-' || text.charAt(5) != '-') {
+            throw invalid(text);
+        }
+        return epochDay(digits(text, 6, 4), digits(text, 3, 2), digits(text, 0, 2), text);
+    }
+
+    /**
+     * Parses a date and time in "dd-MM-yyyy HH:mm" format.
+     * Like the SMART resolver of {@code DateTimeFormatter}, 24:00 is read as midnight at the start of the next day.
+     *
+     * @param text the date and time
+     * @return the epoch minute
+     * @throws DateTimeParseException if the text is not a valid date and time
+     */
+    public static int parseDateTime(CharSequence text) {
+        if (text.length() != 16 || text.charAt(2) != '-' || text.charAt(5) != '-' || text.charAt(10) != ' '
+                || text.charAt(13) != ':') {
+            throw invalid(text);
+        }
+        long epochDay = epochDay(digits(text, 6, 4), digits(text, 3, 2), digits(text, 0, 2), text);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        if (hour == 24 && minute == 0) {
+            return epochMinute(epochDay + 1, 0, 0, text); // The SMART resolver reads 24:00 as the next day's midnight
+        }
+        return epochMinute(epochDay, hour, minute, text);
+    }
+
+    /**
+     * Parses a date and time in "yyyy-MM-dd'T'HH:mm" format.
+     *
+     * @param text the date and time
+     * @return the epoch minute
+     * @throws DateTimeParseException if the text is not a valid date and time
+     */
+    public static int parseIsoDateTime(CharSequence text) {
+        if (text.length() != 16 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':') {
+            throw invalid(text);
+        }
+        long epochDay = epochDay(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2), text);
+        return epochMinute(epochDay, digits(text, 11, 2), digits(text, 14, 2), text);
+    }
+
+    /**
+     * Parses a date in "yyyy-MM-dd" format.
+     *
+     * @param text the date
+     * @return the epoch day
+     * @throws DateTimeParseException if the text is not a valid date
+     */
+    public static long parseIsoDate(CharSequence text) {
+        if (text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            throw invalid(text);
+        }
+        return epochDay(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2), text);
+    }
+
+    /**
+     * Appends a date in "dd-MM-yyyy" format.
+     *
+     * @param out      where to append the date
+     * @param epochDay the epoch day
+     * @return the given StringBuilder
+     */
+    public static StringBuilder appendDate(StringBuilder out, long epochDay) {
+        long civil = civil(epochDay);
+        pad2(out, day(civil)).append('-');
+        pad2(out, month(civil)).append('-');
+        return pad4(out, year(civil));
+    }
+
+    /**
+     * Appends a date and time in "dd-MM-yyyy HH:mm" format.
+     *
+     * @param out         where to append the date and time
+     * @param epochMinute the epoch minute
+     * @return the given StringBuilder
+     */
+    public static StringBuilder appendDateTime(StringBuilder out, int epochMinute) {
+        appendDate(out, Math.floorDiv(epochMinute, MINUTES_PER_DAY)).append(' ');
+        return appendTime(out, epochMinute);
+    }
+
+    /**
+     * Appends a date in "yyyy-MM-dd" format.
+     *
+     * @param out      where to append the date
+     * @param epochDay the epoch day
+     * @return the given StringBuilder
+     */
+    public static StringBuilder appendIsoDate(StringBuilder out, long epochDay) {
+        long civil = civil(epochDay);
+        pad4(out, year(civil)).append('-');
+        pad2(out, month(civil)).append('-');
+        return pad2(out, day(civil));
+    }
+
+    /**
+     * Appends a date and time in "yyyy-MM-dd'T'HH:mm" format.
+     *
+     * @param out         where to append the date and time
+     * @param epochMinute the epoch minute
+     * @return the given StringBuilder
+     */
+    public static StringBuilder appendIsoDateTime(StringBuilder out, int epochMinute) {
+        appendIsoDate(out, Math.floorDiv(epochMinute, MINUTES_PER_DAY)).append('T');
+        return appendTime(out, epochMinute);
+    }
+
+    /**
+     * Formats a date in "dd-MM-yyyy" format.
+     *
+     * @param epochDay the epoch day
+     * @return the formatted date
+     */
+    public static String formatDate(long epochDay) {
+        return appendDate(new StringBuilder(10), epochDay).toString();
+    }
+
+    /**
+     * Formats a date and time in "dd-MM-yyyy HH:mm" format.
+     *
+     * @param epochMinute the epoch minute
+     * @return the formatted date and time
+     */
+    public static String formatDateTime(int epochMinute) {
+        return appendDateTime(new StringBuilder(16), epochMinute).toString();
+    }
+
+    /**
+     * Formats a date in "yyyy-MM-dd" format.
+     *
+     * @param epochDay the epoch day
+     * @return the formatted date
+     */
+    public static String formatIsoDate(long epochDay) {
+        return appendIsoDate(new StringBuilder(10), epochDay).toString();
+    }
+
+    /**
+     * Formats a date and time in "yyyy-MM-dd'T'HH:mm" format.
+     *
+     * @param epochMinute the epoch minute
+     * @return the formatted date and time
+     */
+    public static String formatIsoDateTime(int epochMinute) {
+        return appendIsoDateTime(new StringBuilder(16), epochMinute).toString();
+    }
+
+    /**
+     * Returns the epoch minute of a date and time.
+     *
+     * @param dateTime the date and time; seconds are ignored
+     * @return the epoch minute
+     */
+    public static int toEpochMinute(LocalDateTime dateTime) {
+        return Math.toIntExact(dateTime.toLocalDate().toEpochDay() * MINUTES_PER_DAY
+                + dateTime.getHour() * 60 + dateTime.getMinute());
+    }
+
+    /**
+     * Returns the date and time of an epoch minute.
+     *
+     * @param epochMinute the epoch minute
+     * @return the date and time
+     */
+    public static LocalDateTime toLocalDateTime(int epochMinute) {
+        int minuteOfDay = Math.floorMod(epochMinute, MINUTES_PER_DAY);
+        return LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY))
+                .atTime(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    /**
+     * Returns the epoch day of an epoch minute.
+     *
+     * @param epochMinute the epoch minute
+     * @return the epoch day
+     */
+    public static long toEpochDay(int epochMinute) {
+        return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
+
+    /**
+     * Appends the "HH:mm" time of an epoch minute.
+     *
+     * @param out         where to append the time
+     * @param epochMinute the epoch minute
+     * @return the given StringBuilder
+     */
+    private static StringBuilder appendTime(StringBuilder out, int epochMinute) {
+        int minuteOfDay = Math.floorMod(epochMinute, MINUTES_PER_DAY);
+        pad2(out, minuteOfDay / 60).append(':');
+        return pad2(out, minuteOfDay % 60);
+    }
+
+    /**
+     * Returns the epoch day of a date, clamping the day to the length of the month.
+     *
+     * @param year  the year
+     * @param month the month, from 1 to 12
+     * @param day   the day of the month, from 1 to 31
+     * @param text  the parsed text, for the error message
+     * @return the epoch day
+     * @throws DateTimeParseException if the month or day is out of range
+     */
+    private static long epochDay(int year, int month, int day, CharSequence text) {
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            throw invalid(text);
+        }
+        day = Math.min(day, lengthOfMonth(year, month));
+        // Days from civil, counting years from March so the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Returns the epoch minute of a time on a day.
+     *
+     * @param epochDay the epoch day
+     * @param hour     the hour, from 0 to 23
+     * @param minute   the minute, from 0 to 59
+     * @param text     the parsed text, for the error message
+     * @return the epoch minute
+     * @throws DateTimeParseException if the time is out of range
+     */
+    private static int epochMinute(long epochDay, int hour, int minute, CharSequence text) {
+        if (hour > 23 || minute > 59) {
+            throw invalid(text);
+        }
+        return Math.toIntExact(epochDay * MINUTES_PER_DAY + hour * 60 + minute);
+    }
+
+    /**
+     * Converts an epoch day to a packed year, month and day: {@code year << 9 | month << 5 | day}.
+     *
+     * @param epochDay the epoch day
+     * @return the packed date
+     */
+    private static long civil(long epochDay) {
+        long z = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long marchMonth = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * marchMonth + 2) / 5 + 1;
+        long month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year << 9 | month << 5 | day;
+    }
+
+    /**
+     * Returns the year of a packed date.
+     *
+     * @param civil the packed date
+     * @return the year
+     */
+    private static int year(long civil) {
+        return (int) (civil >> 9);
+    }
+
+    /**
+     * Returns the month of a packed date.
+     *
+     * @param civil the packed date
+     * @return the month
+     */
+    private static int month(long civil) {
+        return (int) (civil >> 5 & 0xF);
+    }
+
+    /**
+     * Returns the day of the month of a packed date.
+     *
+     * @param civil the packed date
+     * @return the day of the month
+     */
+    private static int day(long civil) {
+        return (int) (civil & 0x1F);
+    }
+
+    /**
+     * Returns the number of days in a month.
+     *
+     * @param year  the year
+     * @param month the month, from 1 to 12
+     * @return the number of days
+     */
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Reads a fixed number of decimal digits.
+     *
+     * @param text   the text to read from
+     * @param start  the index of the first digit
+     * @param length the number of digits
+     * @return the value of the digits
+     * @throws DateTimeParseException if a character is not a digit
+     */
+    private static int digits(CharSequence text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid(text);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Appends a number as two digits.
+     *
+     * @param out   where to append the number
+     * @param value the number, from 0 to 99
+     * @return the given StringBuilder
+     */
+    private static StringBuilder pad2(StringBuilder out, int value) {
+        return out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Appends a year as at least four digits.
+     *
+     * @param out  where to append the year
+     * @param year the year
+     * @return the given StringBuilder
+     */
+    private static StringBuilder pad4(StringBuilder out, int year) {
+        if (year >= 0 && year < 1000) {
+            out.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        return out.append(year);
+    }
+
+    /**
+     * Creates the exception thrown for text that is not a valid date.
+     *
+     * @param text the text
+     * @return the exception
+     */
+    private static DateTimeParseException invalid(CharSequence text) {
+        return new DateTimeParseException("Text '" + text + "' could not be parsed", text, 0);
+    }
+}
@@ -0,0 +1,156 @@
+package gym.time;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+/**
+ * A clock that time checks read, together with the last day computed from it.
+ * Each gym has its own, so a simulated clock set for one gym doesn't move the others.
+ * A clock created without a {@link Clock} follows the {@link StudioClock} until one is set.
+ */
+public class GymClock {
+    private volatile Clock clock; // Null to follow the studio clock
+    private volatile Day currentDay; // The last date computed, reused until the clock passes midnight
+
+    /**
+     * Creates a clock that follows the studio clock.
+     */
+    public GymClock() {
+    }
+
+    /**
+     * Creates a clock that reads a given clock.
+     *
+     * @param clock the clock to read
+     */
+    public GymClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the clock currently in use.
+     *
+     * @return the clock
+     */
+    public Clock get() {
+        Clock current = clock;
+        return current != null ? current : StudioClock.get();
+    }
+
+    /**
+     * Replaces the clock this clock reads.
+     *
+     * @param newClock the clock to use, or null to follow the studio clock
+     */
+    public void set(Clock newClock) {
+        clock = newClock;
+        currentDay = null;
+    }
+
+    /**
+     * Returns the current date and time.
+     *
+     * @return the current date and time
+     */
+    public LocalDateTime now() {
+        return LocalDateTime.now(get());
+    }
+
+    /**
+     * Returns the current date.
+     *
+     * @return the current date
+     */
+    public LocalDate today() {
+        Clock current = clock;
+        if (current == null) {
+            return StudioClock.today();
+        }
+        return day(current, current.millis()).date;
+    }
+
+    /**
+     * Returns the current date as a count of days since 1970-01-01.
+     * Reading it within the same day only costs one read of the clock's milliseconds.
+     *
+     * @return the current epoch day
+     */
+    public long todayEpochDay() {
+        Clock current = clock;
+        if (current == null) {
+            return StudioClock.todayEpochDay();
+        }
+        return day(current, current.millis()).epochDay;
+    }
+
+    /**
+     * Returns the current minute as a count of minutes since 1970-01-01 00:00 in the clock's time zone.
+     * Seconds are truncated, so a session starting at the returned minute has already started.
+     *
+     * @return the current epoch minute
+     */
+    public int currentEpochMinute() {
+        Clock current = clock;
+        if (current == null) {
+            return StudioClock.currentEpochMinute();
+        }
+        long millis = current.millis();
+        Day day = day(current, millis);
+        if (!day.uniformOffset) {
+            return DateCodec.toEpochMinute(LocalDateTime.now(current));
+        }
+        return (int) (day.epochDay * DateCodec.MINUTES_PER_DAY + (millis - day.startMillis) / 60_000);
+    }
+
+    /**
+     * Returns the day a clock reading falls on, computing it again only if the clock changed
+     * or the reading is outside the cached day.
+     *
+     * @param current the clock
+     * @param millis  the reading of the clock
+     * @return the day
+     */
+    private Day day(Clock current, long millis) {
+        Day day = currentDay;
+        if (day == null || day.clock != current || millis < day.startMillis || millis >= day.endMillis) {
+            day = new Day(current, LocalDate.ofInstant(Instant.ofEpochMilli(millis), current.getZone()));
+            currentDay = day;
+        }
+        return day;
+    }
+
+    /**
+     * A date together with the range of clock milliseconds it covers.
+     */
+    private static final class Day {
+        private final Clock clock;
+        private final LocalDate date;
+        private final long epochDay;
+        private final long startMillis;
+        private final long endMillis;
+        private final boolean uniformOffset; // No time zone transition during the day
+
+        /**
+         * Creates the day of a date in the zone of a clock.
+         *
+         * @param clock the clock the date was read from
+         * @param date  the date
+         */
+        Day(Clock clock, LocalDate date) {
+            ZoneId zone = clock.getZone();
+            this.clock = clock;
+            this.date = date;
+            this.epochDay = date.toEpochDay();
+            this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            ZoneRules rules = zone.getRules();
+            this.uniformOffset = endMillis - startMillis == 86_400_000L
+                    && rules.getOffset(Instant.ofEpochMilli(startMillis))
+                    .equals(rules.getOffset(Instant.ofEpochMilli(endMillis - 1)));
+        }
+    }
+}
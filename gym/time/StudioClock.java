@@ -0,0 +1,84 @@
+package gym.time;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * The process-wide default clock. Gyms follow it unless they were given a clock of their own
+ * with {@code Gym.setClock}, and checks that don't belong to a gym, like a person's age, read it directly.
+ * Uses the system clock by default; tests can replace it with a fixed or simulated clock.
+ */
+public class StudioClock {
+    private static final GymClock clock = new GymClock(Clock.systemDefaultZone());
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private StudioClock() {
+    }
+
+    /**
+     * Returns the clock currently in use.
+     *
+     * @return the clock
+     */
+    public static Clock get() {
+        return clock.get();
+    }
+
+    /**
+     * Replaces the clock used by all time checks that don't have a clock of their own.
+     *
+     * @param newClock the clock to use
+     */
+    public static void set(Clock newClock) {
+        clock.set(Objects.requireNonNull(newClock));
+    }
+
+    /**
+     * Goes back to using the system clock.
+     */
+    public static void reset() {
+        set(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Returns the current date and time.
+     *
+     * @return the current date and time
+     */
+    public static LocalDateTime now() {
+        return clock.now();
+    }
+
+    /**
+     * Returns the current date.
+     *
+     * @return the current date
+     */
+    public static LocalDate today() {
+        return clock.today();
+    }
+
+    /**
+     * Returns the current date as a count of days since 1970-01-01.
+     * Reading it within the same day only costs one read of the clock's milliseconds.
+     *
+     * @return the current epoch day
+     */
+    public static long todayEpochDay() {
+        return clock.todayEpochDay();
+    }
+
+    /**
+     * Returns the current minute as a count of minutes since 1970-01-01 00:00 in the clock's time zone.
+     * Seconds are truncated, so a session starting at the returned minute has already started.
+     *
+     * @return the current epoch minute
+     */
+    public static int currentEpochMinute() {
+        return clock.currentEpochMinute();
+    }
+}
@@ -0,0 +1,274 @@
+package gym.management;
+
+import gym.Exception.InstructorUnavailableException;
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that bookings and session scheduling made from many threads at once keep the gym consistent.
+ * The repository has no test framework, so each check throws an {@link AssertionError} when it fails.
+ * <p>
+ * Run from the repository root:
+ * <pre>
+ * javac -d out $(find gym test -name '*.java')
+ * java -cp out gym.management.ConcurrentBookingTest
+ * </pre>
+ */
+public class ConcurrentBookingTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+    private static final int LOGGED_ROUNDS = 50; // Rounds that sync an operation log, which are slower
+    private static final int NINJA_CAPACITY = 5; // See NinjaSession
+
+    private static int gymCounter;
+
+    /**
+     * Runs every check.
+     *
+     * @param args not used
+     * @throws Exception if a check can't run
+     */
+    public static void main(String[] args) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            noOverbooking(pool);
+            noOverdraw(pool);
+            cancelledSeatGoesToWaitlist(pool);
+            instructorNotDoubleBooked(pool);
+            System.out.println("All concurrency checks passed");
+        } finally {
+            pool.shutdown();
+            GymRegistry.getInstance().shutdown();
+        }
+    }
+
+    /**
+     * More clients than seats book the same session at once: the session fills up exactly,
+     * and only the clients who got a seat paid for it.
+     *
+     * @param pool the threads to book from
+     * @throws Exception if a booking task fails unexpectedly
+     */
+    private static void noOverbooking(ExecutorService pool) throws Exception {
+        boolean consistent = true;
+        for (int round = 0; round < ROUNDS && consistent; round++) {
+            Gym gym = newGym();
+            Secretary secretary = setUp(gym, NINJA_CAPACITY * 4, 1000);
+            Session session = secretary.addSession(SessionType.Ninja, "01-03-2030 10:00", ForumType.All,
+                    gym.getInstructors().get(0));
+            List<Client> clients = new ArrayList<>(gym.getClients());
+            List<Callable<Void>> bookings = new ArrayList<>();
+            for (Client client : clients) {
+                bookings.add(() -> {
+                    secretary.registerClientToLesson(client, session);
+                    return null;
+                });
+            }
+            runTogether(pool, bookings);
+
+            long priceCents = Math.round(session.getPrice() * 100);
+            int participants = session.getParticipants().size();
+            consistent = participants == NINJA_CAPACITY && session.isFull()
+                    && gym.getBalanceCents() == participants * priceCents;
+            for (Client client : clients) {
+                long expected = session.isClientRegistered(client) ? 100_000 - priceCents : 100_000;
+                consistent &= client.getBalanceCents() == expected;
+            }
+            GymRegistry.getInstance().removeGym(gym.getId());
+        }
+        check(consistent, "concurrent bookings fill a session exactly and charge only the booked clients");
+    }
+
+    /**
+     * One client who can afford three sessions books ten sessions at once: exactly three bookings succeed
+     * and the balance never goes below zero.
+     *
+     * @param pool the threads to book from
+     * @throws Exception if a booking task fails unexpectedly
+     */
+    private static void noOverdraw(ExecutorService pool) throws Exception {
+        boolean consistent = true;
+        for (int round = 0; round < ROUNDS && consistent; round++) {
+            Gym gym = newGym();
+            Secretary secretary = setUp(gym, 1, 450); // Three Ninja sessions
+            Instructor instructor = gym.getInstructors().get(0);
+            Client client = gym.getClients().iterator().next();
+            List<Session> sessions = new ArrayList<>();
+            for (int hour = 8; hour < 18; hour++) {
+                String start = String.format("02-03-2030 %02d:00", hour);
+                sessions.add(secretary.addSession(SessionType.Ninja, start, ForumType.All, instructor));
+            }
+            List<Callable<Void>> bookings = new ArrayList<>();
+            for (Session session : sessions) {
+                bookings.add(() -> {
+                    secretary.registerClientToLesson(client, session);
+                    return null;
+                });
+            }
+            runTogether(pool, bookings);
+
+            int booked = 0;
+            for (Session session : sessions) {
+                booked += session.getParticipants().size();
+            }
+            consistent = booked == 3 && client.getBalanceCents() == 0 && gym.getBalanceCents() == 45_000;
+            GymRegistry.getInstance().removeGym(gym.getId());
+        }
+        check(consistent, "concurrent bookings never spend more than the client's balance");
+    }
+
+    /**
+     * A participant cancels while other clients try to book the full session directly:
+     * the freed seat always goes to the client on the waitlist. The gym's operations are logged,
+     * so the cancellation waits for the disk, as it does in production.
+     *
+     * @param pool the threads to book from
+     * @throws Exception if a booking task fails unexpectedly or the log can't be written
+     */
+    private static void cancelledSeatGoesToWaitlist(ExecutorService pool) throws Exception {
+        boolean consistent = true;
+        Path directory = Files.createTempDirectory("gym-concurrency");
+        for (int round = 0; round < LOGGED_ROUNDS && consistent; round++) {
+            Gym gym = newGym();
+            OperationLog log = OperationLog.open(directory.resolve("gym-" + round + ".log"), gym);
+            Secretary secretary = setUp(gym, NINJA_CAPACITY + 4, 1000);
+            Session session = secretary.addSession(SessionType.Ninja, "03-03-2030 10:00", ForumType.All,
+                    gym.getInstructors().get(0));
+            List<Client> clients = new ArrayList<>(gym.getClients());
+            secretary.registerClientsToLesson(clients.subList(0, NINJA_CAPACITY), session);
+            Client waiting = clients.get(NINJA_CAPACITY);
+            secretary.addToWaitlist(waiting, session);
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            tasks.add(() -> {
+                secretary.cancelRegistration(clients.get(0), session);
+                return null;
+            });
+            for (Client client : clients.subList(NINJA_CAPACITY + 1, clients.size())) {
+                tasks.add(() -> {
+                    secretary.registerClientToLesson(client, session);
+                    return null;
+                });
+            }
+            runTogether(pool, tasks);
+
+            consistent = session.isClientRegistered(waiting) && session.getParticipants().size() == NINJA_CAPACITY
+                    && session.getWaitlistSize() == 0;
+            log.close();
+            GymRegistry.getInstance().removeGym(gym.getId());
+        }
+        check(consistent, "a cancelled seat goes to the waiting client, not to a direct booking");
+    }
+
+    /**
+     * Several threads schedule sessions for one instructor in the same slot: exactly one is added.
+     *
+     * @param pool the threads to schedule from
+     * @throws Exception if a scheduling task fails unexpectedly
+     */
+    private static void instructorNotDoubleBooked(ExecutorService pool) throws Exception {
+        boolean consistent = true;
+        for (int round = 0; round < ROUNDS && consistent; round++) {
+            Gym gym = newGym();
+            Secretary secretary = setUp(gym, 0, 0);
+            Instructor instructor = gym.getInstructors().get(0);
+            AtomicInteger rejected = new AtomicInteger();
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String start = String.format("04-03-2030 10:%02d", i);
+                tasks.add(() -> {
+                    try {
+                        secretary.addSession(SessionType.Pilates, start, ForumType.All, instructor);
+                    } catch (InstructorUnavailableException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            runTogether(pool, tasks);
+
+            consistent = gym.getSessionCount() == 1 && rejected.get() == THREADS - 1;
+            GymRegistry.getInstance().removeGym(gym.getId());
+        }
+        check(consistent, "an instructor is never given two overlapping sessions");
+    }
+
+    /**
+     * Runs tasks on a pool, releasing them all at the same moment, and waits for them to finish.
+     *
+     * @param pool  the threads to run the tasks on
+     * @param tasks the tasks
+     * @throws Exception if a task throws
+     */
+    private static void runTogether(ExecutorService pool, List<Callable<Void>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        for (Future<Void> result : results) {
+            result.get();
+        }
+    }
+
+    /**
+     * Gives a gym a secretary, an instructor certified for Pilates and Ninja, and some clients.
+     *
+     * @param gym         the gym
+     * @param clientCount the number of clients
+     * @param balance     the balance of each client
+     * @return the secretary
+     * @throws Exception if a client can't be registered
+     */
+    private static Secretary setUp(Gym gym, int clientCount, double balance) throws Exception {
+        gym.setSecretary(new Person("Sara", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        secretary.hireInstructor(new Person("Ido", 0, Gender.Male, "01-01-1985"), 100,
+                List.of(SessionType.Pilates, SessionType.Ninja));
+        for (int i = 0; i < clientCount; i++) {
+            secretary.registerClient(new Person("Client" + i, balance, Gender.Female, "01-01-1990"));
+        }
+        return secretary;
+    }
+
+    /**
+     * Creates an empty gym in the process-wide registry.
+     *
+     * @return the gym
+     */
+    private static Gym newGym() {
+        return GymRegistry.getInstance().getGym("concurrency-test-" + ++gymCounter);
+    }
+
+    /**
+     * Fails with a message unless a condition holds.
+     *
+     * @param condition the condition
+     * @param message   what the condition checks
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError("Failed: " + message);
+        }
+        System.out.println("ok: " + message);
+    }
+}
@@ -0,0 +1,262 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Checks that a gym recovered from its snapshot and operation log matches the gym that wrote them.
+ * The repository has no test framework, so each check throws an {@link AssertionError} when it fails.
+ * <p>
+ * Run from the repository root:
+ * <pre>
+ * javac -d out $(find gym test -name '*.java')
+ * java -cp out gym.management.OperationLogRecoveryTest
+ * </pre>
+ */
+public class OperationLogRecoveryTest {
+    private static final byte CLIENT_REGISTERED_TO_SESSION = 6; // Record type, see OperationLog
+
+    private static int gymCounter;
+
+    /**
+     * Runs every check.
+     *
+     * @param args not used
+     * @throws Exception if a check can't run
+     */
+    public static void main(String[] args) throws Exception {
+        try {
+            checkpointThenLog();
+            snapshotWithoutTruncate();
+            staleRecordIsSkipped();
+            foreignInstructorSession();
+            System.out.println("All recovery checks passed");
+        } finally {
+            GymRegistry.getInstance().shutdown();
+        }
+    }
+
+    /**
+     * Operations before a checkpoint come back from the snapshot, and operations after it from the log.
+     *
+     * @throws Exception if the gym can't be saved or recovered
+     */
+    private static void checkpointThenLog() throws Exception {
+        Path directory = Files.createTempDirectory("gym-recovery");
+        Path logFile = directory.resolve("gym.log");
+        Path snapshotFile = directory.resolve("gym.snapshot");
+        Gym gym = newGym();
+        OperationLog log = OperationLog.open(logFile, gym);
+        gym.setName("Recovery");
+        Secretary secretary = setUp(gym);
+        Instructor instructor = gym.getInstructors().get(0);
+        Session pilates = secretary.addSession(SessionType.Pilates, "01-02-2030 10:00", ForumType.All, instructor);
+        List<Client> clients = new ArrayList<>(gym.getClients());
+        secretary.registerClientToLesson(clients.get(0), pilates);
+        log.checkpoint(snapshotFile);
+        check(Files.size(logFile) == 0, "checkpoint empties the log");
+
+        Session ninja = secretary.addSession(SessionType.Ninja, "02-02-2030 10:00", ForumType.All, instructor);
+        secretary.registerClientsToLesson(clients.subList(0, 5), ninja);
+        check(ninja.isFull(), "the Ninja session is full");
+        secretary.addToWaitlist(clients.get(5), ninja);
+        secretary.cancelRegistration(clients.get(1), ninja); // Promotes the waiting client
+        check(ninja.isClientRegistered(clients.get(5)), "the waiting client was promoted");
+        secretary.unregisterClient(clients.get(2)); // Still booked on the Ninja session
+        secretary.paySalaries();
+        log.close();
+
+        Gym recovered = recover(snapshotFile, logFile);
+        check(recovered.toString().equals(gym.toString()), "the recovered gym matches the original");
+        check(recovered.getBalanceCents() == gym.getBalanceCents(), "the recovered balance matches");
+        check(recovered.getOperationLog().getSkippedRecords().isEmpty(), "no record was skipped");
+        recovered.getOperationLog().close();
+    }
+
+    /**
+     * A crash between saving the snapshot and emptying the log leaves records the snapshot already holds;
+     * recovery must not apply them twice.
+     *
+     * @throws Exception if the gym can't be saved or recovered
+     */
+    private static void snapshotWithoutTruncate() throws Exception {
+        Path directory = Files.createTempDirectory("gym-recovery");
+        Path logFile = directory.resolve("gym.log");
+        Path snapshotFile = directory.resolve("gym.snapshot");
+        Gym gym = newGym();
+        OperationLog log = OperationLog.open(logFile, gym);
+        gym.setName("Crash");
+        Secretary secretary = setUp(gym);
+        Session session = secretary.addSession(SessionType.Pilates, "03-02-2030 10:00", ForumType.All,
+                gym.getInstructors().get(0));
+        List<Client> clients = new ArrayList<>(gym.getClients());
+        secretary.registerClientToLesson(clients.get(0), session);
+        log.sync();
+        GymSnapshot.save(gym, snapshotFile); // The log is not emptied, as if the process died here
+        secretary.registerClientToLesson(clients.get(1), session);
+        log.close();
+
+        Gym recovered = recover(snapshotFile, logFile);
+        check(recovered.toString().equals(gym.toString()), "records already in the snapshot are not applied twice");
+        check(recovered.getSession(0).getParticipants().size() == 2, "the booking after the snapshot is recovered");
+        recovered.getOperationLog().close();
+    }
+
+    /**
+     * A record that no longer applies is skipped, and the records after it are still applied.
+     *
+     * @throws Exception if the gym can't be recovered
+     */
+    private static void staleRecordIsSkipped() throws Exception {
+        Path directory = Files.createTempDirectory("gym-recovery");
+        Path logFile = directory.resolve("gym.log");
+        Gym gym = newGym();
+        OperationLog log = OperationLog.open(logFile, gym);
+        Secretary secretary = setUp(gym);
+        Session session = secretary.addSession(SessionType.Pilates, "04-02-2030 10:00", ForumType.All,
+                gym.getInstructors().get(0));
+        long lastSequence = log.getLastSequence();
+        log.close();
+        appendBooking(logFile, lastSequence + 1, Integer.MAX_VALUE, session.getId()); // No such client
+
+        Gym recovered = newGym();
+        OperationLog recoveredLog = OperationLog.open(logFile, recovered);
+        check(recoveredLog.getSkippedRecords().size() == 1, "the stale record is skipped");
+        check(recovered.toString().equals(gym.toString()), "the records before the stale one are applied");
+        Client client = recovered.getClients().iterator().next();
+        recovered.getSecretary().registerClientToLesson(client, recovered.getSession(0));
+        check(recoveredLog.getLastSequence() == lastSequence + 2, "new records follow the stale one");
+        recoveredLog.close();
+
+        Gym again = newGym();
+        OperationLog againLog = OperationLog.open(logFile, again);
+        check(againLog.getSkippedRecords().size() == 1, "the stale record is skipped again");
+        check(again.toString().equals(recovered.toString()), "the records after the stale one are applied");
+        againLog.close();
+    }
+
+    /**
+     * A session led by an instructor the gym never hired is restored with that instructor, and later
+     * bookings still refer to the right sessions.
+     *
+     * @throws Exception if the gym can't be recovered
+     */
+    private static void foreignInstructorSession() throws Exception {
+        Path directory = Files.createTempDirectory("gym-recovery");
+        Path logFile = directory.resolve("gym.log");
+        Gym other = newGym();
+        other.setSecretary(new Person("Omer", 0, Gender.Male, "01-01-1980"), 5000);
+        Instructor foreign = other.getSecretary().hireInstructor(new Person("Noa", 0, Gender.Female, "01-01-1985"),
+                120, List.of(SessionType.ThaiBoxing));
+
+        Gym gym = newGym();
+        OperationLog log = OperationLog.open(logFile, gym);
+        Secretary secretary = setUp(gym);
+        Instructor instructor = gym.getInstructors().get(0);
+        secretary.addSession(SessionType.ThaiBoxing, "05-02-2030 10:00", ForumType.All, foreign);
+        Session pilates = secretary.addSession(SessionType.Pilates, "05-02-2030 12:00", ForumType.All, instructor);
+        secretary.addSession(SessionType.Ninja, "05-02-2030 14:00", ForumType.All, instructor);
+        Client client = gym.getClients().iterator().next();
+        secretary.registerClientToLesson(client, pilates);
+        log.close();
+
+        Gym recovered = newGym();
+        OperationLog recoveredLog = OperationLog.open(logFile, recovered);
+        check(recoveredLog.getSkippedRecords().isEmpty(), "no record was skipped");
+        check(recovered.getInstructors().size() == 1, "the foreign instructor is not hired");
+        check(recovered.getSession(0).getInstructor().getName().equals("Noa"), "the foreign instructor leads the session");
+        check(recovered.getSession(1).getParticipants().size() == 1, "the booking is on the Pilates session");
+        check(recovered.getSession(2).getParticipants().isEmpty(), "the Ninja session has no booking");
+        check(recovered.getClient(client.getId()).getBalance() == client.getBalance(), "the client paid the Pilates price");
+        check(recovered.toString().equals(gym.toString()), "the recovered gym matches the original");
+        recoveredLog.close();
+    }
+
+    /**
+     * Gives a gym a secretary, an instructor and six clients.
+     *
+     * @param gym the gym
+     * @return the secretary
+     * @throws Exception if a client can't be registered
+     */
+    private static Secretary setUp(Gym gym) throws Exception {
+        gym.setSecretary(new Person("Sara", 1000, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        secretary.hireInstructor(new Person("Ido", 0, Gender.Male, "01-01-1985"), 100,
+                List.of(SessionType.Pilates, SessionType.Ninja));
+        for (int i = 0; i < 6; i++) {
+            secretary.registerClient(new Person("Client" + i, 1000, i % 2 == 0 ? Gender.Female : Gender.Male,
+                    "01-01-1990"));
+        }
+        return secretary;
+    }
+
+    /**
+     * Loads a gym's snapshot into a new gym and replays its log.
+     *
+     * @param snapshotFile the snapshot
+     * @param logFile      the operation log
+     * @return the recovered gym, with the log attached
+     * @throws IOException if the gym can't be recovered
+     */
+    private static Gym recover(Path snapshotFile, Path logFile) throws IOException {
+        Gym gym = newGym();
+        GymSnapshot.load(snapshotFile, gym);
+        OperationLog.open(logFile, gym);
+        return gym;
+    }
+
+    /**
+     * Creates an empty gym in the process-wide registry.
+     *
+     * @return the gym
+     */
+    private static Gym newGym() {
+        return GymRegistry.getInstance().getGym("recovery-test-" + ++gymCounter);
+    }
+
+    /**
+     * Appends a session booking record to a log file, encoded the way {@link OperationLog} encodes it.
+     *
+     * @param logFile   the log file
+     * @param sequence  the sequence number of the record
+     * @param clientId  the ID of the booking client
+     * @param sessionId the ID of the session
+     * @throws IOException if the file can't be written
+     */
+    private static void appendBooking(Path logFile, long sequence, int clientId, int sessionId) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(8 + 1 + 4 + 4);
+        body.putLong(sequence).put(CLIENT_REGISTERED_TO_SESSION).putInt(clientId).putInt(sessionId);
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        ByteBuffer record = ByteBuffer.allocate(4 + body.capacity() + 4);
+        record.putInt(body.capacity()).put(body.array()).putInt((int) crc.getValue());
+        Files.write(logFile, record.array(), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Fails with a message unless a condition holds.
+     *
+     * @param condition the condition
+     * @param message   what the condition checks
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError("Failed: " + message);
+        }
+        System.out.println("ok: " + message);
+    }
+}